@@ -19,11 +19,14 @@ public class MixinMain {
         plugin.getLogger().info(translate("&3Successfully attached agent and got instrumentation instance&r&a %s&r", inst.getClass().getName()));
         long start = System.currentTimeMillis();
         // process mixins
+        MixinMinecraftServer.init(plugin);
         RtMixin.processMixins(MixinMinecraftServer.class);
         RtMixin.processMixins(MixinEntityPlayer.class);
         RtMixin.processMixins(MixinCreeper.class);
         RtMixin.processMixins(MixinEnderCrystal.class);
         RtMixin.processMixins(MixinItemStack.class);
+        MixinPlayerConnectionUtils.init(plugin);
+        RtMixin.processMixins(MixinPlayerConnectionUtils.class);
         plugin.getLogger().info(translate("&3Preformed all mixins in&r&a %dms&r", (System.currentTimeMillis() - start)));
     }
 
@@ -2,16 +2,32 @@ package me.ian.mixin.event;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import net.minecraft.server.v1_12_R1.ItemStack;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
 import org.bukkit.event.HandlerList;
 
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Called whenever an NMS item stack is constructed, which happens hundreds of thousands of times per second.
+ * Nothing is allocated unless something listens for it, and listeners can narrow it down further with {@link #setFilter(Predicate)}.
+ */
 @RequiredArgsConstructor
 @Getter
 public class ItemCreateEvent extends Event implements Cancellable {
 
     private static final HandlerList handlers = new HandlerList();
+    private static final LongAdder constructed = new LongAdder();
+    private static final LongAdder fired = new LongAdder();
+
+    // Checked before the event is created, null lets every item through
+    @Setter
+    @Getter
+    private static volatile Predicate<ItemStack> filter;
+
     private final ItemStack item;
     private boolean cancelled = false;
 
@@ -33,4 +49,26 @@ public class ItemCreateEvent extends Event implements Cancellable {
     public void setCancelled(boolean cancel) {
         this.cancelled = cancel;
     }
+
+    public static boolean hasListeners() {
+        return handlers.getRegisteredListeners().length != 0;
+    }
+
+    public static void countConstructed() {
+        constructed.increment();
+    }
+
+    public static void countFired() {
+        fired.increment();
+    }
+
+    // Item stacks constructed since startup
+    public static long getConstructedCount() {
+        return constructed.sum();
+    }
+
+    // Events fired since startup
+    public static long getFiredCount() {
+        return fired.sum();
+    }
 }
@@ -0,0 +1,30 @@
+package me.ian.mixin.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called on the main thread after a player's packet has been handled there.
+ * Only called while something is listening for it.
+ */
+@RequiredArgsConstructor
+@Getter
+public class PacketHandledEvent extends Event {
+
+    private static final HandlerList handlers = new HandlerList();
+    private final Player player;
+    private final Class<?> packetType;
+    private final long nanos;
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+}
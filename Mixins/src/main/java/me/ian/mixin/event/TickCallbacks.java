@@ -0,0 +1,62 @@
+package me.ian.mixin.event;
+
+import co.aikar.timings.Timing;
+import co.aikar.timings.Timings;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Runs registered callbacks at the start of every server tick, before {@link ServerTickEvent} is fired.
+ * Meant for the plugin's own per tick work: callbacks are called straight from an array without creating or dispatching
+ * an event, and each one is timed under its own timings handle that is looked up once when it is registered.
+ * Register and unregister on the main thread.
+ */
+public class TickCallbacks {
+
+    private static volatile Callback[] callbacks = new Callback[0];
+
+    /**
+     * @param plugin   The plugin the callback belongs to, it shows up under this plugin in timings.
+     * @param name     The name shown in timings.
+     * @param callback Called with the current tick number.
+     */
+    public static synchronized void register(Plugin plugin, String name, TickCallback callback) {
+        Callback[] updated = Arrays.copyOf(callbacks, callbacks.length + 1);
+        updated[callbacks.length] = new Callback(plugin, Timings.of(plugin, String.format("Tick - %s", name)), callback);
+        callbacks = updated;
+    }
+
+    // Removes every callback of the plugin, call when it disables
+    public static synchronized void unregister(Plugin plugin) {
+        callbacks = Arrays.stream(callbacks).filter(callback -> callback.plugin != plugin).toArray(Callback[]::new);
+    }
+
+    public static void tick(int tick) {
+        for (Callback callback : callbacks) {
+            try (Timing ignored = callback.timing.startTiming()) {
+                callback.callback.onTick(tick);
+            } catch (Throwable t) {
+                callback.plugin.getLogger().log(Level.SEVERE, "Error in tick callback", t);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface TickCallback {
+        void onTick(int tick);
+    }
+
+    private static class Callback {
+        private final Plugin plugin;
+        private final Timing timing;
+        private final TickCallback callback;
+
+        private Callback(Plugin plugin, Timing timing, TickCallback callback) {
+            this.plugin = plugin;
+            this.timing = timing;
+            this.callback = callback;
+        }
+    }
+}
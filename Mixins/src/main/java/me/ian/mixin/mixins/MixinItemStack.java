@@ -10,6 +10,8 @@ import net.minecraft.server.v1_12_R1.Item;
 import net.minecraft.server.v1_12_R1.ItemStack;
 import org.bukkit.Bukkit;
 
+import java.util.function.Predicate;
+
 public class MixinItemStack {
 
     @Inject(
@@ -17,9 +19,16 @@ public class MixinItemStack {
             at = @At(pos = At.Position.TAIL)
     )
     public static void mixinItemStack(CallbackInfo ci) {
+        ItemCreateEvent.countConstructed();
+        if (!ItemCreateEvent.hasListeners()) return;
+
         ItemStack itemStack = (ItemStack) ci.getSelf();
         if (itemStack.getItem() == Item.getById(0)) return;
+        Predicate<ItemStack> filter = ItemCreateEvent.getFilter();
+        if (filter != null && !filter.test(itemStack)) return;
+
         ItemCreateEvent event = new ItemCreateEvent(itemStack);
+        ItemCreateEvent.countFired();
         Bukkit.getPluginManager().callEvent(event);
         if (event.isCancelled()) {
             itemStack.setCount(-1);
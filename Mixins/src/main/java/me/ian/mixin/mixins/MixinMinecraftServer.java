@@ -3,27 +3,38 @@ package me.ian.mixin.mixins;
 import co.aikar.timings.Timing;
 import co.aikar.timings.Timings;
 import me.ian.mixin.event.ServerTickEvent;
+import me.ian.mixin.event.TickCallbacks;
 import me.txmc.rtmixin.CallbackInfo;
 import me.txmc.rtmixin.mixin.At;
 import me.txmc.rtmixin.mixin.Inject;
 import me.txmc.rtmixin.mixin.MethodInfo;
 import net.minecraft.server.v1_12_R1.MinecraftServer;
 import org.bukkit.Bukkit;
-import org.bukkit.craftbukkit.v1_12_R1.generator.NormalChunkGenerator;
+import org.bukkit.plugin.Plugin;
 
 /**
  * @author SevJ6
  */
 public class MixinMinecraftServer {
 
+    private static Timing eventTiming;
+
+    // Called once from MixinMain so the tick event is timed under the right plugin
+    public static void init(Plugin plugin) {
+        eventTiming = Timings.of(plugin, "Tick Event");
+    }
+
     @Inject(info = @MethodInfo(_class = MinecraftServer.class, name = "C", rtype = void.class), at = @At(pos = At.Position.HEAD))
     public static void onTick(CallbackInfo ci) {
         MinecraftServer mc = (MinecraftServer) ci.getSelf();
-        Timing timing = Timings.of(Bukkit.getPluginManager().getPlugins()[0], "Tick Event");
-        timing.startTiming();
-        ServerTickEvent event = new ServerTickEvent(mc.aq(), mc);
-        Bukkit.getServer().getPluginManager().callEvent(event);
-        if (event.isCancelled()) ci.cancel();
-        timing.stopTiming();
+        TickCallbacks.tick(mc.aq());
+
+        // The event is only for external listeners, skip it when there are none
+        if (eventTiming == null || ServerTickEvent.getHandlerList().getRegisteredListeners().length == 0) return;
+        try (Timing ignored = eventTiming.startTiming()) {
+            ServerTickEvent event = new ServerTickEvent(mc.aq(), mc);
+            Bukkit.getServer().getPluginManager().callEvent(event);
+            if (event.isCancelled()) ci.cancel();
+        }
     }
 }
@@ -0,0 +1,72 @@
+package me.ian.mixin.mixins;
+
+import co.aikar.timings.MinecraftTimings;
+import co.aikar.timings.Timing;
+import me.ian.mixin.event.PacketHandledEvent;
+import me.txmc.rtmixin.CallbackInfo;
+import me.txmc.rtmixin.mixin.At;
+import me.txmc.rtmixin.mixin.Inject;
+import me.txmc.rtmixin.mixin.MethodInfo;
+import net.minecraft.server.v1_12_R1.*;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+
+/**
+ * Times how long each player's packets take to handle on the main thread.
+ * Packets that have to be handled on the main thread are posted there the same way vanilla does it,
+ * but wrapped so the time spent can be reported through {@link PacketHandledEvent}.
+ */
+public class MixinPlayerConnectionUtils {
+
+    private static CancelledPacketHandleException CANCELLED;
+
+    // Called once from MixinMain, before the mixin is applied
+    public static void init(Plugin plugin) {
+        CANCELLED = findCancelledException(plugin);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Inject(info = @MethodInfo(_class = PlayerConnectionUtils.class, name = "ensureMainThread", sig = {Packet.class, PacketListener.class, IAsyncTaskHandler.class}, rtype = void.class), at = @At(pos = At.Position.HEAD))
+    public static void onEnsureMainThread(CallbackInfo ci) {
+        // Leave it to vanilla if nobody is listening
+        if (CANCELLED == null || PacketHandledEvent.getHandlerList().getRegisteredListeners().length == 0) return;
+        Object[] parameters = ci.getParameters();
+        if (!(parameters[1] instanceof PlayerConnection)) return;
+        IAsyncTaskHandler taskHandler = (IAsyncTaskHandler) parameters[2];
+        if (taskHandler.isMainThread()) return;
+        if (!MinecraftServer.getServer().isRunning()) return; // let vanilla drop it while the server stops
+
+        Packet<PacketListener> packet = (Packet<PacketListener>) parameters[0];
+        PlayerConnection connection = (PlayerConnection) parameters[1];
+        Timing timing = MinecraftTimings.getPacketTiming(packet);
+        taskHandler.postToMainThread(() -> {
+            if (!MinecraftServer.getServer().isRunning() || connection.processedDisconnect) return; // same as vanilla
+            long start = System.nanoTime();
+            try (Timing ignored = timing.startTiming()) {
+                packet.a(connection);
+            } finally {
+                Bukkit.getPluginManager().callEvent(new PacketHandledEvent(connection.getPlayer(), packet.getClass(), System.nanoTime() - start));
+            }
+        });
+        throw CANCELLED;
+    }
+
+    // The shared exception vanilla throws to stop handling a packet off the main thread
+    private static CancelledPacketHandleException findCancelledException(Plugin plugin) {
+        try {
+            for (Field field : CancelledPacketHandleException.class.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == CancelledPacketHandleException.class) {
+                    field.setAccessible(true);
+                    return (CancelledPacketHandleException) field.get(null);
+                }
+            }
+        } catch (Throwable t) {
+            plugin.getLogger().log(Level.WARNING, "Could not find the cancelled packet exception, packet timing is disabled", t);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+package me.ian;
+
+import static me.ian.ViolationManager.VALUE_BITS;
+import static me.ian.ViolationManager.VALUE_MASK;
+
+/**
+ * A {@link ViolationManager} for primitive long keys, like packed chunk coordinates, that doesn't box a key per call.
+ * <p>
+ * The counters use the same state layout and decay, but live in an open addressing table of plain longs. The table is
+ * guarded by this manager's lock instead of compare-and-set: its keys are counted on the main thread and only the
+ * purge comes from another thread, so the lock is practically never contended.
+ */
+public abstract class LongViolationManager {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final long start = System.nanoTime();
+    private final int addAmount;
+    private final int removeAmount;
+    private long[] keys;
+    private long[] states;
+    private boolean[] used;
+    private int size;
+
+    public LongViolationManager(int addAmount) {
+        this(addAmount, addAmount);
+    }
+
+    public LongViolationManager(int addAmount, int removeAmount) {
+        this.addAmount = addAmount;
+        this.removeAmount = removeAmount;
+        allocate(MIN_CAPACITY);
+        PVPHelper.INSTANCE.registerViolationManager(this);
+    }
+
+    // Milliseconds since this manager was created
+    private long now() {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        states = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Index of the key, or of the free index it would be put at
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (used[index] && keys[index] != key) index = (index + 1) & mask;
+        return index;
+    }
+
+    private void put(int index, long key, long state) {
+        keys[index] = key;
+        states[index] = state;
+        used[index] = true;
+        size++;
+    }
+
+    /**
+     * Adds `addAmount` violations, or starts counting at 0 for a new key.
+     *
+     * @return The violations after adding.
+     */
+    public synchronized int increment(long key) {
+        long now = now();
+        int index = indexOf(key);
+        if (!used[index]) {
+            put(index, key, now << VALUE_BITS);
+            if (size * 4 > keys.length * 3) rehash(keys.length * 2);
+            return 0;
+        }
+
+        states[index] = ViolationManager.add(states[index], now, addAmount, removeAmount);
+        return (int) (states[index] & VALUE_MASK);
+    }
+
+    public synchronized int getVLS(long key) {
+        int index = indexOf(key);
+        return used[index] ? (int) (ViolationManager.decay(states[index], now(), removeAmount) & VALUE_MASK) : 0;
+    }
+
+    public synchronized void remove(long key) {
+        int index = indexOf(key);
+        if (!used[index]) return;
+
+        // Shift the entries after it back so no probe sequence runs into the hole
+        int mask = keys.length - 1;
+        used[index] = false;
+        size--;
+        for (int next = (index + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            boolean movable = index <= next ? (home <= index || home > next) : (home <= index && home > next);
+            if (!movable) continue;
+            keys[index] = keys[next];
+            states[index] = states[next];
+            used[index] = true;
+            used[next] = false;
+            index = next;
+        }
+    }
+
+    // Drops counters that decayed to zero so keys that stopped violating don't pile up
+    public synchronized void purge() {
+        long now = now();
+        int live = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i] && (ViolationManager.decay(states[i], now, removeAmount) & VALUE_MASK) != 0) live++;
+            else used[i] = false;
+        }
+
+        int capacity = MIN_CAPACITY;
+        while (live * 4 > capacity * 3) capacity *= 2;
+        rehash(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldStates = states;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(indexOf(oldKeys[i]), oldKeys[i], oldStates[i]);
+        }
+    }
+}
@@ -9,7 +9,10 @@ import me.ian.general.EventManager;
 import me.ian.kits.KitManager;
 import me.ian.lobby.npc.NPCManager;
 import me.ian.lobby.world.VoidGen;
+import me.ian.mixin.event.TickCallbacks;
 import me.ian.portal.PortalManager;
+import me.ian.profiler.PlayerCostTracker;
+import me.ian.stats.StatsManager;
 import me.ian.time.TaskManager;
 import me.ian.time.schedulers.TabListUpdater;
 import me.ian.utils.area.BoundingBoxManager;
@@ -29,8 +32,8 @@ import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -47,7 +50,8 @@ public class PVPHelper extends JavaPlugin {
     @Getter
     private PacketEventDispatcher dispatcher;
 
-    private List<ViolationManager> violationManagers;
+    private List<ViolationManager<?>> violationManagers;
+    private List<LongViolationManager> longViolationManagers;
 
     @Getter
     private DuelManager duelManager;
@@ -73,6 +77,12 @@ public class PVPHelper extends JavaPlugin {
     @Getter
     private PortalManager portalManager;
 
+    @Getter
+    private StatsManager statsManager;
+
+    @Getter
+    private PlayerCostTracker playerCostTracker;
+
     // Return the custom Toml configuration
     public Config getRunningConfig() {
         return config;
@@ -90,10 +100,15 @@ public class PVPHelper extends JavaPlugin {
         }
 
         dispatcher = new PacketEventDispatcher(this);
-        violationManagers = new ArrayList<>();
-        EXECUTOR_SERVICE.scheduleAtFixedRate(() -> violationManagers.forEach(ViolationManager::decrementAll), 0, 1, TimeUnit.SECONDS);
+        violationManagers = new CopyOnWriteArrayList<>();
+        longViolationManagers = new CopyOnWriteArrayList<>();
+        EXECUTOR_SERVICE.scheduleAtFixedRate(() -> {
+            violationManagers.forEach(ViolationManager::purge);
+            longViolationManagers.forEach(LongViolationManager::purge);
+        }, 30, 30, TimeUnit.SECONDS);
         commandManager = new CommandManager();
         commandManager.registerCommands();
+        statsManager = new StatsManager();
         duelManager = new DuelManager();
         arenaManager = new ArenaManager();
         boundingBoxManager = new BoundingBoxManager();
@@ -102,6 +117,7 @@ public class PVPHelper extends JavaPlugin {
         eventRegister = new EventManager();
         eventRegister.registerEvents();
         npcManager = new NPCManager();
+        playerCostTracker = new PlayerCostTracker();
         TaskManager.register(TabListUpdater.class);
 
         // Make all worlds generate nothing but void chunks
@@ -120,7 +136,9 @@ public class PVPHelper extends JavaPlugin {
 
     @Override
     public void onDisable() {
-
+        TickCallbacks.unregister(this);
+        if (statsManager != null) statsManager.shutdown();
+        if (kitManager != null) kitManager.close();
     }
 
     private void loadMixins() {
@@ -154,8 +172,13 @@ public class PVPHelper extends JavaPlugin {
         dispatcher.register(listener, packets);
     }
 
-    public void registerViolationManager(ViolationManager violationManager) {
+    public void registerViolationManager(ViolationManager<?> violationManager) {
         if (violationManagers.contains(violationManager)) return;
         violationManagers.add(violationManager);
     }
+
+    public void registerViolationManager(LongViolationManager violationManager) {
+        if (longViolationManagers.contains(violationManager)) return;
+        longViolationManagers.add(violationManager);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,28 @@
 package me.ian;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public abstract class ViolationManager {
-    private final ConcurrentHashMap<Integer, Integer> map;
+/**
+ * Counts violations per key (player, chunk...) that decay by `removeAmount` every second.
+ * <p>
+ * Each counter is a single atomic long holding the value in the low bits and the time it last decayed in the high bits,
+ * so incrementing is one lock-free compare-and-set and the decay is worked out from the timestamp when the counter is
+ * touched instead of rewriting every counter every second. Counters that decayed to zero are purged occasionally.
+ * <p>
+ * Like the old per-second sweep, the first violation of a key counts as 0 and every one after it adds `addAmount`.
+ * A counter that decayed to zero starts over at 0, as if it had been removed.
+ *
+ * @param <K> The type of the keys violations are counted for.
+ */
+public abstract class ViolationManager<K> {
+
+    static final int VALUE_BITS = 24;
+    static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final long DEAD = -1L; // purged, must not be used anymore
+
+    private final ConcurrentHashMap<K, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final long start = System.nanoTime();
     private final int addAmount;
     private final int removeAmount;
 
@@ -14,31 +33,74 @@ public abstract class ViolationManager {
     public ViolationManager(int addAmount, int removeAmount) {
         this.addAmount = addAmount;
         this.removeAmount = removeAmount;
-        map = new ConcurrentHashMap<>();
         PVPHelper.INSTANCE.registerViolationManager(this);
     }
 
-    public void decrementAll() {
-        map.forEach((key, val) -> {
-            if (val <= removeAmount) {
-                map.remove(key);
-                return;
+    // Milliseconds since this manager was created
+    private long now() {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    // Applies the decay for every full second since the counter last decayed
+    static long decay(long state, long now, int removeAmount) {
+        long time = state >>> VALUE_BITS;
+        long seconds = (now - time) / 1000L;
+        if (seconds <= 0) return state;
+        long value = Math.max(0L, (state & VALUE_MASK) - seconds * removeAmount);
+        return ((time + seconds * 1000L) << VALUE_BITS) | value;
+    }
+
+    // The state after one more violation
+    static long add(long state, long now, int addAmount, int removeAmount) {
+        long decayed = decay(state, now, removeAmount);
+        if (decayed != state && (decayed & VALUE_MASK) == 0) return decayed;
+        long value = Math.min(VALUE_MASK, (decayed & VALUE_MASK) + addAmount);
+        return (decayed & ~VALUE_MASK) | value;
+    }
+
+    /**
+     * Adds `addAmount` violations, or starts counting at 0 for a new key.
+     *
+     * @return The violations after adding.
+     */
+    public int increment(K key) {
+        long now = now();
+        while (true) {
+            AtomicLong counter = counters.get(key);
+            if (counter == null) {
+                counter = counters.putIfAbsent(key, new AtomicLong(now << VALUE_BITS));
+                if (counter == null) return 0;
             }
-            map.replace(key, val - removeAmount);
-        });
+
+            long state = counter.get();
+            if (state == DEAD) {
+                counters.remove(key, counter);
+                continue;
+            }
+
+            long next = add(state, now, addAmount, removeAmount);
+            if (counter.compareAndSet(state, next)) return (int) (next & VALUE_MASK);
+        }
     }
 
-    public void increment(int uuid) {
-        if (!map.containsKey(uuid)) {
-            map.put(uuid, 0);
-        } else map.replace(uuid, map.get(uuid) + addAmount);
+    public int getVLS(K key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) return 0;
+        long state = counter.get();
+        return state == DEAD ? 0 : (int) (decay(state, now(), removeAmount) & VALUE_MASK);
     }
 
-    public int getVLS(int id) {
-        return map.getOrDefault(id, -1);
+    public void remove(K key) {
+        counters.remove(key);
     }
 
-    public void remove(int id) {
-        map.remove(id);
+    // Drops counters that decayed to zero so keys that stopped violating don't pile up
+    public void purge() {
+        long now = now();
+        counters.forEach((key, counter) -> {
+            long state = counter.get();
+            if (state == DEAD || (decay(state, now, removeAmount) & VALUE_MASK) != 0) return;
+            if (counter.compareAndSet(state, DEAD)) counters.remove(key, counter);
+        });
     }
 }
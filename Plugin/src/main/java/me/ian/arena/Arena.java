@@ -1,24 +1,18 @@
 package me.ian.arena;
 
-import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.Vector;
-import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.blocks.BaseBlock;
-import com.sk89q.worldedit.bukkit.BukkitUtil;
-import com.sk89q.worldedit.bukkit.BukkitWorld;
-import com.sk89q.worldedit.function.operation.Operations;
-import com.sk89q.worldedit.regions.CuboidRegion;
 import lombok.Getter;
-import lombok.SneakyThrows;
+import lombok.Setter;
 import me.ian.PVPHelper;
+import me.ian.arena.reset.ArenaSnapshot;
+import me.ian.utils.WorldQuery;
 import me.ian.utils.area.BoundingBox;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 public class Arena {
@@ -28,12 +22,16 @@ public class Arena {
     private final BoundingBox boundingBox;
     private final boolean isDuelArena;
 
+    // Saved layout that resets restore, null if the arena is cleared to air
+    @Setter
+    private ArenaSnapshot snapshot;
+
     public Arena(String name, BoundingBox boundingBox, boolean isDuelArena) {
         this.name = name;
         this.boundingBox = boundingBox;
         this.world = boundingBox.getWorld();
         this.isDuelArena = isDuelArena;
-        if (isDuelArena) PVPHelper.INSTANCE.getDuelManager().getDuelArenas().add(this);
+        if (isDuelArena) PVPHelper.INSTANCE.getDuelManager().getArenaPool().add(this);
     }
 
 
@@ -101,31 +99,20 @@ public class Arena {
     // Override bukkit's World.getHighestBlockAt method. Not sure why but it just fucks up sometimes
     public Location getHighestSpot(Location location) {
         Location clone = location.clone();
-        for (double y = Math.max(boundingBox.getPointA().getY(), boundingBox.getPointB().getY()) - 1; y > 0; y--) {
-            clone.setY(y);
-            if (!clone.getBlock().isEmpty()) break;
-        }
-        return clone.add(0.0, 1.0, 0.0);
+        int maxY = (int) Math.floor(Math.max(boundingBox.getPointA().getY(), boundingBox.getPointB().getY()) - 1);
+        int y = WorldQuery.getHighestBlockY(clone.getWorld(), clone.getBlockX(), clone.getBlockZ(), maxY);
+        clone.setY(Math.max(y, 1) + 1);
+        return clone;
     }
 
-    @SneakyThrows
-    public void clear() {
-        Location pointA = boundingBox.getPointA();
-        Location pointB = boundingBox.getPointB();
-        CuboidRegion region = new CuboidRegion(BukkitUtil.getLocalWorld(getWorld()), new Vector(pointA.getX(), pointA.getY(), pointA.getZ()), new Vector(pointB.getX(), pointB.getY(), pointB.getZ()));
-        EditSession session = WorldEdit.getInstance().getEditSessionFactory().getEditSession(new BukkitWorld(getWorld()), region.getArea());
-        for (int x = region.getMinimumPoint().getBlockX(); x <= region.getMaximumPoint().getBlockX(); x++) {
-            for (int y = region.getMinimumPoint().getBlockY(); y <= region.getMaximumPoint().getBlockY(); y++) {
-                for (int z = region.getMinimumPoint().getBlockZ(); z <= region.getMaximumPoint().getBlockZ(); z++) {
-                    if (getWorld().getBlockAt(x, y, z).getType() != Material.BEDROCK) {
-                        session.setBlock(new Vector(x, y, z), new BaseBlock(0));
-                    }
-                }
-            }
-        }
-        Operations.complete(session.commit());
-        session.flushQueue();
-        getEntities().forEach(Entity::remove); // remove all entities
+    /**
+     * Queues the arena to be reset back to its snapshot, or cleared to air (keeping bedrock) if it has none.
+     * The work is spread over the next few ticks by the arena reset engine.
+     *
+     * @return A future completed on the main thread once the arena is reset.
+     */
+    public CompletableFuture<Void> clear() {
+        return PVPHelper.INSTANCE.getArenaManager().getResetEngine().reset(this);
     }
 
 }
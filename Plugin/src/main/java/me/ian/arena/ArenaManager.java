@@ -2,9 +2,12 @@ package me.ian.arena;
 
 import lombok.Getter;
 import me.ian.PVPHelper;
+import me.ian.arena.reset.ArenaResetEngine;
+import me.ian.arena.reset.ArenaSnapshot;
 import me.ian.utils.IManagerData;
 import me.ian.utils.NBTUtils;
 import me.ian.utils.area.BoundingBox;
+import me.ian.utils.area.BoundingBoxIndex;
 import net.minecraft.server.v1_12_R1.NBTTagCompound;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -16,7 +19,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Function;
 import java.util.logging.Level;
 
 @Getter
@@ -24,9 +26,13 @@ public class ArenaManager implements Listener, IManagerData<Arena> {
 
     private final File arenaDataFolder;
     private final List<Arena> arenas;
+    private final BoundingBoxIndex<Arena> arenaIndex;
+    private final ArenaResetEngine resetEngine;
 
     public ArenaManager() {
+        this.resetEngine = new ArenaResetEngine();
         this.arenas = new ArrayList<>();
+        this.arenaIndex = new BoundingBoxIndex<>(Arena::getBoundingBox);
         arenaDataFolder = new File(PVPHelper.INSTANCE.getDataFolder(), "arenas");
         if (!arenaDataFolder.exists()) arenaDataFolder.mkdirs();
 
@@ -34,7 +40,9 @@ public class ArenaManager implements Listener, IManagerData<Arena> {
         Arrays.stream(Objects.requireNonNull(arenaDataFolder.listFiles())).filter(file -> file.getName().endsWith(".nbt")).forEach(file -> {
             NBTTagCompound compound = NBTUtils.readTagFromFile(file);
             Arena arena = fromCompound(compound);
+            loadSnapshot(arena);
             arenas.add(arena);
+            arenaIndex.add(arena);
         });
 
         PVPHelper.INSTANCE.registerListener(this);
@@ -45,13 +53,13 @@ public class ArenaManager implements Listener, IManagerData<Arena> {
     public void create(Arena arena) {
         try {
             File file = new File(arenaDataFolder, String.format("%s.nbt", arena.getName()));
-            if (!file.exists()) file.createNewFile();
             NBTUtils.writeTagToFile(toCompound(arena), file);
         } catch (Throwable t) {
             t.printStackTrace();
         }
 
         arenas.add(arena);
+        arenaIndex.add(arena);
     }
 
     @Override
@@ -59,7 +67,29 @@ public class ArenaManager implements Listener, IManagerData<Arena> {
         File file = new File(arenaDataFolder, String.format("%s.nbt", arena.getName()));
         if (!file.exists()) return;
         file.delete();
+        arena.setSnapshot(null);
+        File snapshotFile = getSnapshotFile(arena);
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            PVPHelper.INSTANCE.getLogger().warning(String.format("Failed to delete snapshot file %s of arena %s", snapshotFile.getName(), arena.getName()));
+        }
+        if (arena.isDuelArena()) PVPHelper.INSTANCE.getDuelManager().getArenaPool().remove(arena);
         arenas.remove(arena);
+        arenaIndex.remove(arena);
+    }
+
+    public File getSnapshotFile(Arena arena) {
+        return new File(arenaDataFolder, String.format("%s.snapshot", arena.getName()));
+    }
+
+    private void loadSnapshot(Arena arena) {
+        File file = getSnapshotFile(arena);
+        if (!file.exists()) return;
+        try {
+            arena.setSnapshot(ArenaSnapshot.load(file));
+        } catch (Throwable t) {
+            PVPHelper.INSTANCE.getLogger().warning(String.format("Failed to load snapshot for arena %s", arena.getName()));
+            t.printStackTrace();
+        }
     }
 
     @Override
@@ -83,15 +113,17 @@ public class ArenaManager implements Listener, IManagerData<Arena> {
         return arenas.stream().filter(arena -> arena.getName().equals(name)).findAny().orElse(null);
     }
 
-    private boolean isWithinBounds(Function<Arena, Boolean> condition) {
-        return arenas.stream().anyMatch(condition::apply);
+    // Get the arena containing a location, or null if it is not inside any arena
+    public Arena getArenaAt(Location location) {
+        return arenaIndex.find(location.getWorld(), location.getX(), location.getY(), location.getZ());
     }
 
+    // Players are checked by the block they are standing in
     public boolean isPlayerInArena(Player player) {
-        return isWithinBounds(arena -> arena.isPlayerWithinBounds(player));
+        return arenaIndex.find(player) != null;
     }
 
     public boolean isLocationInArena(Location location) {
-        return isWithinBounds(arena -> arena.isLocationWithinBounds(location));
+        return getArenaAt(location) != null;
     }
 }
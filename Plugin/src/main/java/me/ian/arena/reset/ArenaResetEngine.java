@@ -0,0 +1,69 @@
+package me.ian.arena.reset;
+
+import me.ian.PVPHelper;
+import me.ian.arena.Arena;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Spreads arena resets over multiple ticks.
+ * Every tick up to `arena_reset_budget` blocks are looked at across the queued resets, oldest first.
+ */
+public class ArenaResetEngine implements Runnable {
+
+    private final Deque<ResetJob> jobs = new ArrayDeque<>();
+    private final Map<Arena, ResetJob> jobsByArena = new HashMap<>();
+
+    public ArenaResetEngine() {
+        Bukkit.getScheduler().runTaskTimer(PVPHelper.INSTANCE, this, 1L, 1L);
+    }
+
+    /**
+     * Queues an arena to be reset. Resetting an arena that is already queued returns the pending reset.
+     *
+     * @param arena The arena to reset.
+     * @return A future completed on the main thread once the arena has been reset.
+     */
+    public CompletableFuture<Void> reset(Arena arena) {
+        ResetJob pending = jobsByArena.get(arena);
+        if (pending != null) return pending.getFuture();
+
+        ResetJob job = arena.getSnapshot() != null ? new SnapshotResetJob(arena, arena.getSnapshot()) : new ResetJob(arena);
+        jobs.add(job);
+        jobsByArena.put(arena, job);
+        return job.getFuture();
+    }
+
+    public boolean isResetting(Arena arena) {
+        return jobsByArena.containsKey(arena);
+    }
+
+    @Override
+    public void run() {
+        int budget = PVPHelper.INSTANCE.getRunningConfig().getToml().getLong("arena_reset_budget", 32768L).intValue();
+        while (budget > 0 && !jobs.isEmpty()) {
+            ResetJob job = jobs.peek();
+            try {
+                budget = job.process(budget);
+            } catch (Throwable t) {
+                PVPHelper.INSTANCE.getLogger().severe(String.format("Failed to reset arena %s", job.getArena().getName()));
+                t.printStackTrace();
+                jobs.poll();
+                jobsByArena.remove(job.getArena());
+                job.getFuture().completeExceptionally(t);
+                continue;
+            }
+
+            if (job.isDone()) {
+                jobs.poll();
+                jobsByArena.remove(job.getArena());
+                job.complete();
+            }
+        }
+    }
+}
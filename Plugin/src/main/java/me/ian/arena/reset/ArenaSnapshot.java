@@ -0,0 +1,202 @@
+package me.ian.arena.reset;
+
+import me.ian.PVPHelper;
+import me.ian.arena.Arena;
+import me.ian.utils.area.BoundingBox;
+import net.minecraft.server.v1_12_R1.*;
+import org.bukkit.craftbukkit.v1_12_R1.CraftWorld;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A saved block layout of an arena that resets restore instead of clearing to air.
+ * <p>
+ * Blocks are stored as a palette of combined block ids plus bit-packed palette indices,
+ * with a bitmask of which chunk sections contain anything so empty ones can be skipped on restore.
+ * The whole file is read onto the heap when loaded. It is not memory-mapped because a mapped file stays locked on
+ * Windows until the mapping is garbage collected, which breaks replacing and deleting snapshots.
+ * Tile entity contents (chest items, bed colors...) are not part of the snapshot.
+ */
+public class ArenaSnapshot {
+
+    private static final int MAGIC = 0x50565053; // PVPS
+    private static final byte VERSION = 1;
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final int minChunkX, minChunkZ, minSection, chunksX, chunksZ;
+    private final IBlockData[] palette;
+    private final int bits;
+    private final int entriesPerLong;
+    private final long entryMask;
+    private final long[] sectionMask;
+    private final ByteBuffer data;
+
+    private ArenaSnapshot(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, IBlockData[] palette, int bits, long[] sectionMask, ByteBuffer data) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.minChunkX = minX >> 4;
+        this.minChunkZ = minZ >> 4;
+        this.minSection = minY >> 4;
+        this.chunksX = ((minX + sizeX - 1) >> 4) - minChunkX + 1;
+        this.chunksZ = ((minZ + sizeZ - 1) >> 4) - minChunkZ + 1;
+        this.palette = palette;
+        this.bits = bits;
+        this.entriesPerLong = 64 / bits;
+        this.entryMask = (1L << bits) - 1;
+        this.sectionMask = sectionMask;
+        this.data = data;
+    }
+
+    /**
+     * @return The stored block at a position, or null if the position is outside of the snapshot.
+     */
+    public IBlockData getBlock(int x, int y, int z) {
+        int dx = x - minX, dy = y - minY, dz = z - minZ;
+        if (dx < 0 || dy < 0 || dz < 0 || dx >= sizeX || dy >= sizeY || dz >= sizeZ) return null;
+        int index = (dy * sizeZ + dz) * sizeX + dx;
+        long word = data.getLong((index / entriesPerLong) << 3);
+        return palette[(int) ((word >>> ((index % entriesPerLong) * bits)) & entryMask)];
+    }
+
+    public boolean isSectionEmpty(int chunkX, int sectionY, int chunkZ) {
+        int cell = sectionIndex(chunkX, sectionY, chunkZ);
+        return cell < 0 || (sectionMask[cell >> 6] & (1L << cell)) == 0;
+    }
+
+    private int sectionIndex(int chunkX, int sectionY, int chunkZ) {
+        int dx = chunkX - minChunkX, dy = sectionY - minSection, dz = chunkZ - minChunkZ;
+        if (dx < 0 || dy < 0 || dz < 0 || dx >= chunksX || dz >= chunksZ || dy > ((minY + sizeY - 1) >> 4) - minSection) return -1;
+        return (dy * chunksZ + dz) * chunksX + dx;
+    }
+
+    /**
+     * Captures the current blocks of an arena and saves them to a file.
+     * Blocks are read on the calling thread, which must be the main thread. Encoding and writing happen on the executor.
+     *
+     * @param arena The arena to capture.
+     * @param file  The file to save the snapshot to.
+     * @return A future completed off the main thread with the saved snapshot.
+     */
+    public static CompletableFuture<ArenaSnapshot> capture(Arena arena, File file) {
+        BoundingBox box = arena.getBoundingBox();
+        WorldServer world = ((CraftWorld) arena.getWorld()).getHandle();
+        int minX = (int) Math.floor(box.getMinX());
+        int minY = Math.max(0, (int) Math.floor(box.getMinY()));
+        int minZ = (int) Math.floor(box.getMinZ());
+        int sizeX = (int) Math.floor(box.getMaxX()) - minX + 1;
+        int sizeY = Math.min(255, (int) Math.floor(box.getMaxY())) - minY + 1;
+        int sizeZ = (int) Math.floor(box.getMaxZ()) - minZ + 1;
+
+        int[] ids = new int[sizeX * sizeY * sizeZ];
+        int index = 0;
+        for (int y = minY; y < minY + sizeY; y++) {
+            for (int z = minZ; z < minZ + sizeZ; z++) {
+                for (int x = minX; x < minX + sizeX; x++) {
+                    ChunkSection section = world.getChunkAt(x >> 4, z >> 4).getSections()[y >> 4];
+                    ids[index++] = section == null ? 0 : Block.getCombinedId(section.getType(x & 15, y & 15, z & 15));
+                }
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write(file, minX, minY, minZ, sizeX, sizeY, sizeZ, ids);
+                return load(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, PVPHelper.EXECUTOR_SERVICE);
+    }
+
+    private static void write(File file, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] ids) throws IOException {
+        // Build the palette, air is always entry 0
+        Map<Integer, Integer> paletteIndex = new HashMap<>();
+        paletteIndex.put(0, 0);
+        int[] indices = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indices[i] = paletteIndex.computeIfAbsent(ids[i], id -> paletteIndex.size());
+        }
+        int[] palette = new int[paletteIndex.size()];
+        paletteIndex.forEach((id, i) -> palette[i] = id);
+
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(palette.length - 1));
+        int entriesPerLong = 64 / bits;
+        long[] data = new long[(indices.length + entriesPerLong - 1) / entriesPerLong];
+        for (int i = 0; i < indices.length; i++) {
+            data[i / entriesPerLong] |= (long) indices[i] << ((i % entriesPerLong) * bits);
+        }
+
+        int minChunkX = minX >> 4, minChunkZ = minZ >> 4, minSection = minY >> 4;
+        int chunksX = ((minX + sizeX - 1) >> 4) - minChunkX + 1;
+        int chunksZ = ((minZ + sizeZ - 1) >> 4) - minChunkZ + 1;
+        int sections = ((minY + sizeY - 1) >> 4) - minSection + 1;
+        long[] sectionMask = new long[(chunksX * chunksZ * sections + 63) >> 6];
+        int index = 0;
+        for (int y = minY; y < minY + sizeY; y++) {
+            for (int z = minZ; z < minZ + sizeZ; z++) {
+                for (int x = minX; x < minX + sizeX; x++) {
+                    if (indices[index++] == 0) continue;
+                    int cell = (((y >> 4) - minSection) * chunksZ + ((z >> 4) - minChunkZ)) * chunksX + ((x >> 4) - minChunkX);
+                    sectionMask[cell >> 6] |= 1L << cell;
+                }
+            }
+        }
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(minX);
+            out.writeInt(minY);
+            out.writeInt(minZ);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(sizeZ);
+            out.writeInt(palette.length);
+            for (int id : palette) out.writeInt(id);
+            out.writeByte(bits);
+            out.writeInt(sectionMask.length);
+            for (long word : sectionMask) out.writeLong(word);
+            out.writeInt(data.length);
+            for (long word : data) out.writeLong(word);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file. No file handle is kept open, so the file can be replaced or deleted right after.
+     *
+     * @param file The snapshot file.
+     * @return The loaded snapshot.
+     */
+    public static ArenaSnapshot load(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+        if (buffer.getInt() != MAGIC) throw new IOException(file.getName() + " is not an arena snapshot");
+        byte version = buffer.get();
+        if (version != VERSION) throw new IOException(String.format("Unsupported arena snapshot version %s in %s", version, file.getName()));
+
+        int minX = buffer.getInt(), minY = buffer.getInt(), minZ = buffer.getInt();
+        int sizeX = buffer.getInt(), sizeY = buffer.getInt(), sizeZ = buffer.getInt();
+        IBlockData[] palette = new IBlockData[buffer.getInt()];
+        for (int i = 0; i < palette.length; i++) palette[i] = Block.getByCombinedId(buffer.getInt());
+        int bits = buffer.get();
+        long[] sectionMask = new long[buffer.getInt()];
+        for (int i = 0; i < sectionMask.length; i++) sectionMask[i] = buffer.getLong();
+        buffer.getInt(); // data length
+        ByteBuffer data = buffer.slice();
+
+        return new ArenaSnapshot(minX, minY, minZ, sizeX, sizeY, sizeZ, palette, bits, sectionMask, data);
+    }
+}
@@ -0,0 +1,155 @@
+package me.ian.arena.reset;
+
+import lombok.Getter;
+import me.ian.arena.Arena;
+import me.ian.utils.area.BoundingBox;
+import net.minecraft.server.v1_12_R1.*;
+import org.bukkit.craftbukkit.v1_12_R1.CraftWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resets one arena a chunk section at a time.
+ * Only blocks that differ from their target are rewritten, directly into the chunk section,
+ * and each touched chunk is relit and resent to its viewers once all of its sections are done.
+ * <p>
+ * Sky light is recomputed for the whole chunk, block light only around blocks whose light emission changed, like
+ * removed or restored torches and glowstone. Block light that shifts only because an opaque block was removed or
+ * restored next to an unchanged light source is left until the next light update there.
+ * Neighbours are intentionally not notified: a reset arena has no physics or redstone updates, and the resent chunk
+ * replaces the block change packets players would otherwise get.
+ */
+public class ResetJob {
+
+    private static final IBlockData AIR = Blocks.AIR.getBlockData();
+    private static final int RELIGHT_COST = 64; // budget used per block light check
+
+    @Getter
+    private final Arena arena;
+    @Getter
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final WorldServer world;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    private final int minChunkX, minChunkZ, chunksX, chunkCount;
+    private final int minSection, maxSection;
+
+    // Cursor
+    private int chunkIndex;
+    private int section;
+    private boolean chunkModified;
+    private final List<BlockPosition> relight = new ArrayList<>();
+
+    public ResetJob(Arena arena) {
+        BoundingBox box = arena.getBoundingBox();
+        this.arena = arena;
+        this.world = ((CraftWorld) arena.getWorld()).getHandle();
+        this.minX = (int) Math.floor(box.getMinX());
+        this.minY = Math.max(0, (int) Math.floor(box.getMinY()));
+        this.minZ = (int) Math.floor(box.getMinZ());
+        this.maxX = (int) Math.floor(box.getMaxX());
+        this.maxY = Math.min(255, (int) Math.floor(box.getMaxY()));
+        this.maxZ = (int) Math.floor(box.getMaxZ());
+        this.minChunkX = minX >> 4;
+        this.minChunkZ = minZ >> 4;
+        this.chunksX = (maxX >> 4) - minChunkX + 1;
+        this.chunkCount = chunksX * ((maxZ >> 4) - minChunkZ + 1);
+        this.minSection = minY >> 4;
+        this.maxSection = maxY >> 4;
+        this.section = minSection;
+    }
+
+    public boolean isDone() {
+        return chunkIndex >= chunkCount || minY > maxY;
+    }
+
+    /**
+     * Works through sections until the budget runs out.
+     *
+     * @param budget the amount of blocks that may still be looked at this tick
+     * @return the budget left over
+     */
+    public int process(int budget) {
+        while (budget > 0 && !isDone()) {
+            int chunkX = minChunkX + chunkIndex % chunksX;
+            int chunkZ = minChunkZ + chunkIndex / chunksX;
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+            budget -= resetSection(chunk, section);
+
+            if (++section > maxSection) {
+                if (chunkModified) budget -= finishChunk(chunk);
+                chunkModified = false;
+                section = minSection;
+                chunkIndex++;
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * The block that should be at a position once the arena has been reset.
+     * By default everything but bedrock is cleared to air.
+     */
+    protected IBlockData getTarget(int x, int y, int z, IBlockData current) {
+        return current.getBlock() == Blocks.BEDROCK ? current : AIR;
+    }
+
+    // Whether a section has no blocks in it once reset, so an already empty section can be skipped entirely
+    protected boolean isTargetSectionEmpty(int chunkX, int sectionY, int chunkZ) {
+        return true;
+    }
+
+    private int resetSection(Chunk chunk, int sectionY) {
+        ChunkSection[] sections = chunk.getSections();
+        ChunkSection chunkSection = sections[sectionY];
+        if ((chunkSection == null || chunkSection.a()) && isTargetSectionEmpty(chunk.locX, sectionY, chunk.locZ)) return 1;
+
+        int x0 = Math.max(minX, chunk.locX << 4), x1 = Math.min(maxX, (chunk.locX << 4) + 15);
+        int y0 = Math.max(minY, sectionY << 4), y1 = Math.min(maxY, (sectionY << 4) + 15);
+        int z0 = Math.max(minZ, chunk.locZ << 4), z1 = Math.min(maxZ, (chunk.locZ << 4) + 15);
+        for (int y = y0; y <= y1; y++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int x = x0; x <= x1; x++) {
+                    IBlockData current = chunkSection == null ? AIR : chunkSection.getType(x & 15, y & 15, z & 15);
+                    IBlockData target = getTarget(x, y, z, current);
+                    if (current == target) continue;
+
+                    // Tile entities need the world to create and remove them
+                    if (current.getBlock() instanceof ITileEntity || target.getBlock() instanceof ITileEntity) {
+                        world.setTypeAndData(new BlockPosition(x, y, z), target, 2);
+                        chunkSection = sections[sectionY];
+                        continue;
+                    }
+
+                    if (chunkSection == null) {
+                        chunkSection = new ChunkSection(sectionY << 4, world.worldProvider.m());
+                        sections[sectionY] = chunkSection;
+                    }
+                    chunkSection.setType(x & 15, y & 15, z & 15, target);
+                    if (current.d() != target.d()) relight.add(new BlockPosition(x, y, z)); // light emission changed
+                    chunkModified = true;
+                }
+            }
+        }
+        return (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+    }
+
+    // Relights the chunk and resends it to everyone watching it, returns the budget used
+    private int finishChunk(Chunk chunk) {
+        chunk.initLighting();
+        relight.forEach(position -> world.c(EnumSkyBlock.BLOCK, position));
+        int cost = relight.size() * RELIGHT_COST;
+        relight.clear();
+        chunk.markDirty();
+        PlayerChunk playerChunk = world.getPlayerChunkMap().getChunk(chunk.locX, chunk.locZ);
+        if (playerChunk != null) playerChunk.a(new PacketPlayOutMapChunk(chunk, 65535));
+        return cost;
+    }
+
+    // Called by the engine on the main thread once every section has been processed
+    void complete() {
+        arena.getEntities().forEach(org.bukkit.entity.Entity::remove);
+        future.complete(null);
+    }
+}
@@ -0,0 +1,28 @@
+package me.ian.arena.reset;
+
+import me.ian.arena.Arena;
+import net.minecraft.server.v1_12_R1.IBlockData;
+
+/**
+ * Resets an arena back to its saved snapshot instead of clearing it.
+ */
+public class SnapshotResetJob extends ResetJob {
+
+    private final ArenaSnapshot snapshot;
+
+    public SnapshotResetJob(Arena arena, ArenaSnapshot snapshot) {
+        super(arena);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    protected IBlockData getTarget(int x, int y, int z, IBlockData current) {
+        IBlockData target = snapshot.getBlock(x, y, z);
+        return target != null ? target : super.getTarget(x, y, z, current);
+    }
+
+    @Override
+    protected boolean isTargetSectionEmpty(int chunkX, int sectionY, int chunkZ) {
+        return snapshot.isSectionEmpty(chunkX, sectionY, chunkZ);
+    }
+}
@@ -37,6 +37,9 @@ public class CommandManager {
         commands.add(new PortalCommand());
         commands.add(new PluginToolsCommand());
         commands.add(new SpawnCommand());
+        commands.add(new QueueCommand());
+        commands.add(new StatsCommand());
+        commands.add(new LagProfileCommand());
     }
 
     public void registerCommands() {
@@ -3,6 +3,7 @@ package me.ian.command.commands;
 import me.ian.PVPHelper;
 import me.ian.arena.Arena;
 import me.ian.arena.ArenaManager;
+import me.ian.arena.reset.ArenaSnapshot;
 import me.ian.command.PluginCommand;
 import me.ian.utils.area.BoundingBox;
 import me.ian.utils.Utils;
@@ -63,6 +64,26 @@ public class ArenaCommand extends PluginCommand implements CommandExecutor {
                     Utils.broadcastMessage(String.format("&b%s cleared all arenas.", player.getName()));
                     break;
 
+                case "snapshotarena":
+                    if (args.length > 0) {
+                        Arena arena = arenaManager.getArena(args[0]);
+                        if (arena == null) {
+                            Utils.sendMessage(player, String.format("&cArena %s does not exist", args[0]));
+                            break;
+                        }
+
+                        ArenaSnapshot.capture(arena, arenaManager.getSnapshotFile(arena)).whenComplete((snapshot, throwable) -> Utils.run(() -> {
+                            if (throwable != null) {
+                                Utils.sendMessage(player, String.format("&cFailed to save a snapshot of arena %s", arena.getName()));
+                                throwable.printStackTrace();
+                                return;
+                            }
+                            arena.setSnapshot(snapshot);
+                            Utils.sendMessage(player, String.format("&bSaved snapshot of arena &a%s&b. Resets will now restore it.", arena.getName()));
+                        }));
+                    } else Utils.sendMessage(player, "&cEnter a name please.");
+                    break;
+
                 case "removearena":
                     if (args.length > 0) {
                         Arena arena = arenaManager.getArena(args[0]);
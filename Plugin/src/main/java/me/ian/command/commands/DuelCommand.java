@@ -18,7 +18,6 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -66,31 +65,18 @@ public class DuelCommand extends PluginCommand implements CommandExecutor {
                     return true;
                 }
 
-                Arena arena = PVPHelper.INSTANCE.getDuelManager().findEmptyArena();
+                Arena arena = PVPHelper.INSTANCE.getDuelManager().acquireArena();
                 if (arena == null) {
                     Utils.sendMessage(player, "&cAll duel arenas are currently occupied. Please try again later.");
                     duelRequests.remove(player.getUniqueId());
                     return true;
                 }
 
-                Duel duel = new Duel(arena, Arrays.asList(challenger, player));
-                PVPHelper.INSTANCE.getDuelManager().getDuels().add(duel);
-                duel.start();
+                PVPHelper.INSTANCE.getDuelManager().startDuel(arena, challenger, player, false);
 
                 Utils.sendMessage(player, "&bYou accepted the duel request from &a" + challenger.getName() + "&b!");
                 Utils.sendMessage(challenger, "&bYour duel request was accepted by &a" + player.getName() + "&b!");
                 duelRequests.remove(player.getUniqueId());
-
-                TextComponent spectate = new TextComponent(Utils.translateChars("&9&l[SPECTATE]"));
-                spectate.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new BaseComponent[]{new TextComponent(Utils.translateChars("&aClick to SPECTATE the duel"))}));
-                spectate.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/duel spectate " + duel.getIdentifier().toString()));
-
-                Bukkit.getOnlinePlayers().stream()
-                        .filter(p -> !duel.getParticipants().contains(p))
-                        .forEach(p -> {
-                            Utils.sendMessage(p, PVPHelper.INSTANCE.getRunningConfig().getToml().getString("duel_start").replace("%challenger%", duel.getParticipants().get(0).getName()).replace("%opponent%", duel.getParticipants().get(1).getName()));
-                            p.sendMessage(spectate);
-                        });
                 return true;
             }
             case "decline": {
@@ -121,7 +107,7 @@ public class DuelCommand extends PluginCommand implements CommandExecutor {
                     return true;
                 }
 
-                duel.getSpectators().add(player);
+                PVPHelper.INSTANCE.getDuelManager().addSpectator(duel, player);
                 player.setGameMode(GameMode.SPECTATOR);
                 player.teleport(duel.getArena().getCenter());
                 PlayerUtils.facePlayersTowardsEachOther(player, duel.getParticipants().get(0));
@@ -4,6 +4,7 @@ import me.ian.PVPHelper;
 import me.ian.command.PluginCommand;
 import me.ian.kits.Kit;
 import me.ian.kits.KitManager;
+import me.ian.kits.KitMap;
 import me.ian.kits.gui.KitGuiTypeSelector;
 import me.ian.utils.NBTUtils;
 import me.ian.utils.Utils;
@@ -14,8 +15,6 @@ import org.bukkit.command.TabExecutor;
 import org.bukkit.entity.Player;
 
 import javax.rmi.CORBA.Util;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -60,8 +59,8 @@ public class KitCommand extends PluginCommand implements TabExecutor {
                 final String KIT_NAME = args[0];
 
                 // Check if the player already has a kit with the same name
-                List<Kit> playerKits = kitManager.getUserKits().get(player.getUniqueId());
-                if (playerKits != null && playerKits.stream().anyMatch(k -> k.getName().equalsIgnoreCase(KIT_NAME))) {
+                KitMap playerKits = kitManager.getUserKits().get(player.getUniqueId());
+                if (playerKits != null && playerKits.contains(KIT_NAME)) {
                     Utils.sendMessage(player, String.format("&cYou already have a user kit named &a%s&c.", KIT_NAME));
                     break;
                 }
@@ -85,8 +84,8 @@ public class KitCommand extends PluginCommand implements TabExecutor {
 
                 // Add the kit to the player's kit list
                 kitManager.getUserKits()
-                        .computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>())
-                        .add(userKit);
+                        .computeIfAbsent(player.getUniqueId(), k -> new KitMap())
+                        .put(userKit);
 
                 Utils.sendMessage(player, String.format("&bCreated user kit &a%s", userKit.getName()));
                 break;
@@ -102,11 +101,6 @@ public class KitCommand extends PluginCommand implements TabExecutor {
                     break;
                 }
 
-                if (kitManager.getGlobalKits().size() >= 36) {
-                    Utils.sendMessage(player, "&cCan not create more than 36 global kits");
-                    break;
-                }
-
                 final String GKIT_NAME = args[0];
 
                 // Check if a global kit with the same name already exists
@@ -120,7 +114,7 @@ public class KitCommand extends PluginCommand implements TabExecutor {
                 kitManager.saveKit(globalKit);
 
                 // Add the kit to the global kit list
-                kitManager.getGlobalKits().add(globalKit);
+                kitManager.getGlobalKits().put(globalKit);
 
                 Utils.sendMessage(player, String.format("&bCreated global kit &a%s", globalKit.getName()));
                 break;
@@ -171,7 +165,7 @@ public class KitCommand extends PluginCommand implements TabExecutor {
 
             case "listukits":
                 // List all user kits for the player
-                List<Kit> userKits = kitManager.getUserKits().get(player.getUniqueId());
+                KitMap userKits = kitManager.getUserKits().get(player.getUniqueId());
                 if (userKits == null || userKits.isEmpty()) {
                     Utils.sendMessage(player, "&cYou have no user kits.");
                 } else {
@@ -185,7 +179,7 @@ public class KitCommand extends PluginCommand implements TabExecutor {
 
             case "listgkits":
                 // List all global kits
-                List<Kit> globalKits = kitManager.getGlobalKits();
+                KitMap globalKits = kitManager.getGlobalKits();
                 if (globalKits.isEmpty()) {
                     Utils.sendMessage(player, "&cNo global kits available.");
                 } else {
@@ -209,9 +203,10 @@ public class KitCommand extends PluginCommand implements TabExecutor {
 
         return Stream.concat(
                         kitManager.getGlobalKits().stream(),
-                        kitManager.getUserKits().getOrDefault(player.getUniqueId(), Collections.emptyList()).stream()
+                        kitManager.getUserKits().getOrDefault(player.getUniqueId(), new KitMap()).stream()
                 )
                 .map(Kit::getName)
+                .filter(name -> args.length == 0 || name.toLowerCase().startsWith(args[args.length - 1].toLowerCase()))
                 .collect(Collectors.toList());
     }
 }
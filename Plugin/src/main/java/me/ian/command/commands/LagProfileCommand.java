@@ -0,0 +1,98 @@
+package me.ian.command.commands;
+
+import me.ian.PVPHelper;
+import me.ian.command.PluginCommand;
+import me.ian.mixin.event.ItemCreateEvent;
+import me.ian.profiler.PlayerCost;
+import me.ian.profiler.PlayerCostTracker;
+import me.ian.utils.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class LagProfileCommand extends PluginCommand implements TabExecutor {
+
+    public LagProfileCommand() {
+        super("lagprofile", true, true);
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        PlayerCostTracker tracker = PVPHelper.INSTANCE.getPlayerCostTracker();
+        if (args.length == 0) {
+            List<PlayerCost> top = tracker.getTop(10);
+            if (top.isEmpty()) {
+                Utils.sendMessage(sender, tracker.isRunning() ? "&cNo player costs recorded yet" : "&cThe profiler is not running, start it with /lagprofile start");
+                return true;
+            }
+
+            Utils.sendMessage(sender, "&bMain thread time over the last minute:");
+            for (PlayerCost cost : top) {
+                Utils.sendMessage(sender, String.format("&a%s&7: &b%.1fms &7(%s packets, p50 %sus, p99 %sus)",
+                        cost.getName(), cost.getTotalNanos() / 1_000_000D, cost.getCount(), cost.getPercentileMicros(0.5D), cost.getPercentileMicros(0.99D)));
+            }
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "start":
+                tracker.start();
+                Utils.sendMessage(sender, "&bStarted the player cost profiler");
+                return true;
+            case "stop":
+                tracker.stop();
+                Utils.sendMessage(sender, "&bStopped the player cost profiler, recorded costs are kept until it is started again");
+                return true;
+            case "export":
+                Utils.sendMessage(sender, String.format("&bExporting player costs to &a%s", tracker.export().getName()));
+                return true;
+            case "hooks":
+                Utils.sendMessage(sender, String.format("&bItem stacks constructed: &a%s&b, ItemCreateEvents fired: &a%s",
+                        ItemCreateEvent.getConstructedCount(), ItemCreateEvent.getFiredCount()));
+                return true;
+            case "reset":
+                tracker.reset();
+                Utils.sendMessage(sender, "&bCleared all player costs");
+                return true;
+        }
+
+        Player target = Bukkit.getPlayerExact(args[0]);
+        PlayerCost cost = target == null ? null : tracker.getCost(target.getUniqueId());
+        if (cost == null) {
+            Utils.sendMessage(sender, String.format("&cNo costs recorded for %s", args[0]));
+            return true;
+        }
+
+        Utils.sendMessage(sender, String.format("&bCosts of &a%s &bover the last minute: &a%.1fms &bin &a%s &bpackets, p50 &a%sus&b, p99 &a%sus",
+                cost.getName(), cost.getTotalNanos() / 1_000_000D, cost.getCount(), cost.getPercentileMicros(0.5D), cost.getPercentileMicros(0.99D)));
+        Utils.sendMessage(sender, "&bMost expensive packets and events since joining:");
+        cost.getSources().entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(8)
+                .forEach(entry -> Utils.sendMessage(sender, formatSource(entry)));
+        return true;
+    }
+
+    private String formatSource(Map.Entry<Class<?>, long[]> entry) {
+        long[] source = entry.getValue();
+        return String.format("&7- &a%s&7: &b%.1fms &7over %s calls", entry.getKey().getSimpleName(), source[0] / 1_000_000D, source[1]);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length != 1) return new ArrayList<>();
+        List<String> options = new ArrayList<>(Arrays.asList("start", "stop", "export", "hooks", "reset"));
+        Bukkit.getOnlinePlayers().forEach(player -> options.add(player.getName()));
+        return options.stream()
+                .filter(option -> option.toLowerCase().startsWith(args[0].toLowerCase()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,73 @@
+package me.ian.command.commands;
+
+import me.ian.PVPHelper;
+import me.ian.command.PluginCommand;
+import me.ian.duels.matchmaking.MatchmakingQueue;
+import me.ian.kits.Kit;
+import me.ian.utils.Utils;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class QueueCommand extends PluginCommand implements TabExecutor {
+
+    public QueueCommand() {
+        super("queue", false, false);
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player)) return true;
+        Player player = (Player) sender;
+        MatchmakingQueue queue = PVPHelper.INSTANCE.getDuelManager().getMatchmakingQueue();
+
+        if (label.equalsIgnoreCase("leavequeue")) {
+            if (queue.leave(player)) {
+                Utils.sendMessage(player, "&bLeft the queue.");
+            } else {
+                Utils.sendMessage(player, "&cYou are not in the queue.");
+            }
+            return true;
+        }
+
+        if (args.length == 0 || !(args[0].equalsIgnoreCase("ranked") || args[0].equalsIgnoreCase("unranked"))) {
+            Utils.sendMessage(player, "&c/queue <ranked|unranked> [kit]");
+            return true;
+        }
+
+        if (PVPHelper.INSTANCE.getDuelManager().getDuelByParticipant(player) != null || PVPHelper.INSTANCE.getArenaManager().isPlayerInArena(player)) {
+            Utils.sendMessage(player, "&cYou can not queue while in an arena.");
+            return true;
+        }
+
+        // Only global kits can be queued with, both players need to have the same loadout
+        String kitName = null;
+        if (args.length > 1) {
+            Kit kit = PVPHelper.INSTANCE.getKitManager().getKit(null, args[1]);
+            if (kit == null) {
+                Utils.sendMessage(player, String.format("&cGlobal kit %s does not exist", args[1]));
+                return true;
+            }
+            kitName = kit.getName();
+        }
+
+        boolean ranked = args[0].equalsIgnoreCase("ranked");
+        queue.join(player, kitName, ranked);
+        Utils.sendMessage(player, String.format("&bJoined the &a%s &bqueue%s. &7Use /leavequeue to leave.", ranked ? "ranked" : "unranked", kitName == null ? "" : " with kit &a" + kitName + "&b"));
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+        if (label.equalsIgnoreCase("leavequeue")) return Collections.emptyList();
+        if (args.length == 1) return Arrays.asList("ranked", "unranked");
+        if (args.length == 2) return PVPHelper.INSTANCE.getKitManager().getGlobalKits().stream().map(Kit::getName).collect(Collectors.toList());
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,47 @@
+package me.ian.command.commands;
+
+import me.ian.PVPHelper;
+import me.ian.command.PluginCommand;
+import me.ian.stats.PlayerStats;
+import me.ian.utils.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.stream.Collectors;
+
+public class StatsCommand extends PluginCommand implements CommandExecutor {
+
+    public StatsCommand() {
+        super("stats", false, false);
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player)) return true;
+        Player player = (Player) sender;
+
+        OfflinePlayer target = player;
+        if (args.length > 0) {
+            target = Bukkit.getPlayerExact(args[0]);
+            if (target == null) {
+                Utils.sendMessage(player, String.format("&cPlayer %s is not online", args[0]));
+                return true;
+            }
+        }
+
+        PlayerStats stats = PVPHelper.INSTANCE.getStatsManager().getStats(target);
+        String kills = stats.getKills().entrySet().stream()
+                .map(entry -> String.format("&a%s &7%s", entry.getValue(), entry.getKey()))
+                .collect(Collectors.joining("&7, "));
+
+        Utils.sendMessage(player, String.format("&bStats of &a%s&b:", target.getName()));
+        Utils.sendMessage(player, String.format("&bRating: &a%s", stats.getRating()));
+        Utils.sendMessage(player, String.format("&bDuels: &a%s &bwins, &c%s &blosses", stats.getWins(), stats.getLosses()));
+        Utils.sendMessage(player, String.format("&bKills: &a%s %s&b, Deaths: &c%s", stats.getTotalKills(), kills.isEmpty() ? "" : "&7(" + kills + "&7)", stats.getDeaths()));
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package me.ian.duels;
+
+import me.ian.PVPHelper;
+import me.ian.arena.Arena;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Keeps track of which duel arenas are free, in use or being reset.
+ * Only arenas that have finished resetting are handed out, and finished arenas are reset in the background.
+ */
+public class ArenaPool {
+
+    public enum State {
+        FREE,
+        BUSY,
+        RESETTING
+    }
+
+    private final Map<Arena, State> states = new HashMap<>();
+    private final Deque<Arena> free = new ArrayDeque<>();
+
+    public void add(Arena arena) {
+        if (states.containsKey(arena)) return;
+        states.put(arena, State.FREE);
+        free.add(arena);
+    }
+
+    public void remove(Arena arena) {
+        if (states.remove(arena) == State.FREE) free.remove(arena);
+    }
+
+    /**
+     * Takes a clean arena out of the pool.
+     *
+     * @return The arena, or null if every duel arena is in use or still resetting.
+     */
+    public Arena acquire() {
+        Arena arena = free.poll();
+        if (arena != null) states.put(arena, State.BUSY);
+        return arena;
+    }
+
+    /**
+     * Returns an arena to the pool. It is reset first and only handed out again once the reset is done.
+     *
+     * @param arena The arena a duel has finished in.
+     */
+    public void release(Arena arena) {
+        if (states.get(arena) != State.BUSY) return;
+        states.put(arena, State.RESETTING);
+        arena.clear().whenComplete((ignored, throwable) -> {
+            if (throwable != null) PVPHelper.INSTANCE.getLogger().log(Level.WARNING, String.format("Returning arena %s to the pool after a failed reset", arena.getName()));
+            if (states.get(arena) != State.RESETTING) return; // removed while resetting
+            states.put(arena, State.FREE);
+            free.add(arena);
+        });
+    }
+
+    public State getState(Arena arena) {
+        return states.get(arena);
+    }
+
+    public int getFreeCount() {
+        return free.size();
+    }
+
+    public int getSize() {
+        return states.size();
+    }
+}
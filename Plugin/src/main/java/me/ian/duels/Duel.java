@@ -7,7 +7,6 @@ import me.ian.PVPHelper;
 import me.ian.arena.Arena;
 import me.ian.utils.PlayerUtils;
 import me.ian.utils.Utils;
-import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.entity.Firework;
 import org.bukkit.entity.Player;
@@ -25,6 +24,15 @@ public class Duel {
     private boolean active = false;
     private boolean winnerDeclared = false;
     private final UUID identifier = UUID.randomUUID();
+    private Player winner;
+    private boolean ranked = false;
+
+    // Seconds left before the duel starts and ticks until the next second
+    private int countdown = 5;
+    private int countdownTicks = 20;
+
+    // Ticks left after the winner is declared before everyone is sent back
+    private int cleanupTicks;
 
     public void start() {
         Player challenger = participants.get(0);
@@ -32,28 +40,39 @@ public class Duel {
         challenger.teleport(arena.getHighestSpot(arena.getBoundingBox().getPointA()).add(0.5, 0.0, 0.5));
         opponent.teleport(arena.getHighestSpot(arena.getBoundingBox().getPointB()).add(0.5, 0.0, 0.5));
         PlayerUtils.facePlayersTowardsEachOther(challenger, opponent);
+    }
 
-        new Timer().scheduleAtFixedRate(new TimerTask() {
-            int countdown = 5;
-
-            @Override
-            public void run() {
-                if (countdown == 0) {
-                    participants.forEach(player -> {
-                        PlayerUtils.sendTitle(player, "&e&lGO!", "");
-                        PlayerUtils.sendPling(player, 2f);
-                    });
-                    setActive(true);
-                    this.cancel();
-                } else {
-                    participants.forEach(player -> {
-                        PlayerUtils.sendTitle(player, String.format("&e%s &7vs. &e%s", challenger.getName(), opponent.getName()), String.format("&bMatch starts in &a%s &bseconds...", countdown));
-                        PlayerUtils.sendPling(player, 1f);
-                    });
-                    countdown--;
-                }
+    /**
+     * Advances the countdown and the post-win cleanup. Called by the duel manager on the main thread every server tick.
+     *
+     * @return false once the duel is over and cleaned up, and no longer needs to be ticked.
+     */
+    public boolean tick() {
+        if (winnerDeclared) {
+            if (--cleanupTicks > 0) return true;
+            cleanup();
+            return false;
+        }
+
+        if (!active && --countdownTicks <= 0) {
+            countdownTicks = 20;
+            if (countdown == 0) {
+                participants.forEach(player -> {
+                    PlayerUtils.sendTitle(player, "&e&lGO!", "");
+                    PlayerUtils.sendPling(player, 2f);
+                });
+                setActive(true);
+            } else {
+                Player challenger = participants.get(0);
+                Player opponent = participants.get(1);
+                participants.forEach(player -> {
+                    PlayerUtils.sendTitle(player, String.format("&e%s &7vs. &e%s", challenger.getName(), opponent.getName()), String.format("&bMatch starts in &a%s &bseconds...", countdown));
+                    PlayerUtils.sendPling(player, 1f);
+                });
+                countdown--;
             }
-        }, 1000L, 1000L);
+        }
+        return true;
     }
 
     public void declareWinner(Player player) {
@@ -67,21 +86,30 @@ public class Duel {
                         .replace("%max_health%", String.format("%.2f", player.getMaxHealth()))
         );
 
+        participants.stream()
+                .filter(participant -> !participant.equals(player))
+                .findFirst()
+                .ifPresent(loser -> PVPHelper.INSTANCE.getStatsManager().recordDuel(player, loser, ranked));
+
         player.getWorld().spawn(player.getLocation(), Firework.class);
+        winner = player;
+        cleanupTicks = 90;
+    }
 
-        Bukkit.getScheduler().runTaskLater(PVPHelper.INSTANCE, () -> {
-            arena.clear();
+    // Send everyone back to spawn and hand the arena back to be reset
+    private void cleanup() {
+        if (winner.isOnline()) {
+            resetWinnerState(winner);
+        }
 
-            if (player.isOnline()) {
-                resetWinnerState(player);
-            }
+        spectators.stream()
+                .filter(Player::isOnline)
+                .forEach(this::resetSpectatorState);
 
-            spectators.stream()
-                    .filter(Player::isOnline)
-                    .forEach(this::resetSpectatorState);
+        spectators.clear();
 
-            spectators.clear();
-        }, 90L);
+        // Reset the arena in the background, it is handed out again once it is clean
+        PVPHelper.INSTANCE.getDuelManager().getArenaPool().release(arena);
     }
 
     private void resetWinnerState(Player player) {
@@ -3,7 +3,15 @@ package me.ian.duels;
 import lombok.Getter;
 import me.ian.PVPHelper;
 import me.ian.arena.Arena;
+import me.ian.duels.matchmaking.MatchmakingQueue;
 import me.ian.mixin.event.PlayerPreDeathEvent;
+import me.ian.mixin.event.TickCallbacks;
+import me.ian.utils.Utils;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ClickEvent;
+import net.md_5.bungee.api.chat.HoverEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
@@ -17,56 +25,131 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Getter
 public class DuelManager implements Listener {
 
     private final List<Duel> duels = new ArrayList<>();
-    private final List<Arena> duelArenas = new ArrayList<>();
+
+    // Duels still counting down, running or waiting on their post-win cleanup
+    private final List<Duel> tickingDuels = new ArrayList<>();
+    private final ArenaPool arenaPool = new ArenaPool();
+    private final MatchmakingQueue matchmakingQueue;
+
+    // Player UUID -> the duel they are fighting in or spectating, so event handlers don't scan every duel
+    private final Map<UUID, Duel> participantIndex = new HashMap<>();
+    private final Map<UUID, Duel> spectatorIndex = new HashMap<>();
 
     public DuelManager() {
         PVPHelper.INSTANCE.registerListener(this);
+        TickCallbacks.register(PVPHelper.INSTANCE, "Duels", this::onTick);
+        matchmakingQueue = new MatchmakingQueue(this);
+    }
+
+    // Take a reset, unused duel arena out of the pool. Returns null if none are available
+    public Arena acquireArena() {
+        return arenaPool.acquire();
+    }
+
+    /**
+     * Starts a duel between two players and announces it to everyone else with a button to spectate.
+     *
+     * @param arena      An arena acquired from the pool.
+     * @param challenger The first participant.
+     * @param opponent   The second participant.
+     * @param ranked     Whether the result counts towards the players' ratings.
+     * @return The started duel.
+     */
+    public Duel startDuel(Arena arena, Player challenger, Player opponent, boolean ranked) {
+        matchmakingQueue.leave(challenger);
+        matchmakingQueue.leave(opponent);
+
+        Duel duel = new Duel(arena, Arrays.asList(challenger, opponent));
+        duel.setRanked(ranked);
+        addDuel(duel);
+        duel.start();
+
+        TextComponent spectate = new TextComponent(Utils.translateChars("&9&l[SPECTATE]"));
+        spectate.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new BaseComponent[]{new TextComponent(Utils.translateChars("&aClick to SPECTATE the duel"))}));
+        spectate.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/duel spectate " + duel.getIdentifier().toString()));
+
+        String message = PVPHelper.INSTANCE.getRunningConfig().getToml().getString("duel_start").replace("%challenger%", challenger.getName()).replace("%opponent%", opponent.getName());
+        Bukkit.getOnlinePlayers().stream()
+                .filter(p -> !duel.getParticipants().contains(p))
+                .forEach(p -> {
+                    Utils.sendMessage(p, message);
+                    p.sendMessage(spectate);
+                });
+        return duel;
+    }
+
+    public void addDuel(Duel duel) {
+        duels.add(duel);
+        tickingDuels.add(duel);
+        duel.getParticipants().forEach(participant -> participantIndex.put(participant.getUniqueId(), duel));
+    }
+
+    public void removeDuel(Duel duel) {
+        duels.remove(duel);
+        duel.getParticipants().forEach(participant -> participantIndex.remove(participant.getUniqueId(), duel));
+        duel.getSpectators().forEach(spectator -> spectatorIndex.remove(spectator.getUniqueId(), duel));
     }
 
-    public Arena findEmptyArena() {
-        return duelArenas.stream()
-                .filter(arena -> duels.stream().noneMatch(duel -> duel.getArena() == arena))
-                .findFirst()
-                .orElse(null);
+    public void addSpectator(Duel duel, Player player) {
+        duel.getSpectators().add(player);
+        spectatorIndex.put(player.getUniqueId(), duel);
+    }
+
+    public Duel getDuelByParticipant(Player player) {
+        return participantIndex.get(player.getUniqueId());
+    }
+
+    public Duel getDuelBySpectator(Player player) {
+        return spectatorIndex.get(player.getUniqueId());
+    }
+
+    // Whether a player is in a duel that is counting down and hasn't been decided yet
+    private boolean isFrozen(Player player) {
+        Duel duel = getDuelByParticipant(player);
+        return duel != null && !duel.isActive() && !duel.isWinnerDeclared();
+    }
+
+    // Advance every duel's countdown and cleanup in one pass on the server tick
+    private void onTick(int tick) {
+        tickingDuels.removeIf(duel -> !duel.tick());
     }
 
     @EventHandler
     public void onMove(PlayerMoveEvent event) {
         Player player = event.getPlayer();
-        event.setCancelled(duels.stream().anyMatch(duel -> duel.getParticipants().contains(player) && !duel.isActive() && !duel.isWinnerDeclared()));
+        event.setCancelled(isFrozen(player));
 
         if (!event.isCancelled()) {
-            duels.stream().filter(duel -> duel.getSpectators().contains(player)).findAny().ifPresent(duel -> {
-                if (!duel.getArena().isPlayerWithinBounds(player)) {
-                    Location center = duel.getArena().getCenter();
-                    center.setYaw(player.getLocation().getYaw());
-                    center.setPitch(player.getLocation().getPitch());
-                    player.teleport(center);
-                }
-            });
+            Duel duel = getDuelBySpectator(player);
+            if (duel != null && !duel.getArena().isPlayerWithinBounds(player)) {
+                Location center = duel.getArena().getCenter();
+                center.setYaw(player.getLocation().getYaw());
+                center.setPitch(player.getLocation().getPitch());
+                player.teleport(center);
+            }
         }
     }
 
     @EventHandler
     public void onDamage(EntityDamageEvent event) {
-        event.setCancelled(event.getEntity() instanceof Player && duels.stream().anyMatch(duel -> duel.getParticipants().contains((Player) event.getEntity()) && !duel.isActive()));
+        Duel duel = event.getEntity() instanceof Player ? getDuelByParticipant((Player) event.getEntity()) : null;
+        event.setCancelled(duel != null && !duel.isActive());
     }
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
-        event.setCancelled(duels.stream().anyMatch(duel -> duel.getParticipants().contains(event.getPlayer()) && !duel.isActive() && !duel.isWinnerDeclared()));
+        event.setCancelled(isFrozen(event.getPlayer()));
     }
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent event) {
-        event.setCancelled(duels.stream().anyMatch(duel -> duel.getParticipants().contains(event.getPlayer()) && !duel.isActive() && !duel.isWinnerDeclared()));
+        event.setCancelled(isFrozen(event.getPlayer()));
     }
 
     @EventHandler(priority = EventPriority.HIGH)
@@ -77,17 +160,16 @@ public class DuelManager implements Listener {
     @EventHandler(priority = EventPriority.HIGH)
     public void onQuit(PlayerQuitEvent event) {
         handleDeclaration(event.getPlayer());
-    }
 
-    private Duel findDuelByPlayer(Player player) {
-        return duels.stream()
-                .filter(duel -> duel.getParticipants().contains(player))
-                .findFirst()
-                .orElse(null); // Return null if no duel found
+        Duel spectated = getDuelBySpectator(event.getPlayer());
+        if (spectated != null) {
+            spectated.getSpectators().remove(event.getPlayer());
+            spectatorIndex.remove(event.getPlayer().getUniqueId());
+        }
     }
 
     private void handleDeclaration(Player player) {
-        Duel duel = findDuelByPlayer(player);
+        Duel duel = getDuelByParticipant(player);
 
         if (duel != null) {
             duel.setActive(false);
@@ -97,7 +179,7 @@ public class DuelManager implements Listener {
                     .filter(participant -> !participant.equals(player))
                     .findFirst().ifPresent(duel::declareWinner);
 
-            duels.remove(duel);
+            removeDuel(duel);
         }
     }
 }
@@ -0,0 +1,128 @@
+package me.ian.duels.matchmaking;
+
+import com.moandjiezana.toml.Toml;
+import me.ian.PVPHelper;
+import me.ian.arena.Arena;
+import me.ian.duels.DuelManager;
+import me.ian.kits.Kit;
+import me.ian.mixin.event.TickCallbacks;
+import me.ian.utils.Utils;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.*;
+
+/**
+ * Pairs queued players with a similar rating in the same ladder (kit + ranked mode).
+ * Each ladder is a rating ordered tree so joining and leaving are O(log n), and pairing runs in batches
+ * every `matchmaking.interval` ticks. The allowed rating gap widens the longer a player has been waiting.
+ */
+public class MatchmakingQueue implements Listener {
+
+    private final DuelManager duelManager;
+    private final Map<String, TreeSet<QueueEntry>> ladders = new HashMap<>();
+    private final Map<UUID, QueueEntry> entries = new HashMap<>();
+    private int ticks;
+
+    public MatchmakingQueue(DuelManager duelManager) {
+        this.duelManager = duelManager;
+        PVPHelper.INSTANCE.registerListener(this);
+        TickCallbacks.register(PVPHelper.INSTANCE, "Matchmaking", this::onTick);
+    }
+
+    public void join(Player player, String kitName, boolean ranked) {
+        leave(player);
+        QueueEntry entry = new QueueEntry(player, getRating(player), kitName, ranked);
+        entries.put(player.getUniqueId(), entry);
+        ladders.computeIfAbsent(entry.getLadder(), ladder -> new TreeSet<>()).add(entry);
+    }
+
+    public boolean leave(Player player) {
+        QueueEntry entry = entries.remove(player.getUniqueId());
+        if (entry == null) return false;
+        TreeSet<QueueEntry> ladder = ladders.get(entry.getLadder());
+        ladder.remove(entry);
+        if (ladder.isEmpty()) ladders.remove(entry.getLadder());
+        return true;
+    }
+
+    public boolean isQueued(Player player) {
+        return entries.containsKey(player.getUniqueId());
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    private int getRating(Player player) {
+        return PVPHelper.INSTANCE.getStatsManager().getStats(player).getRating();
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        leave(event.getPlayer());
+    }
+
+    private void onTick(int tick) {
+        if (entries.isEmpty()) return;
+        Toml root = PVPHelper.INSTANCE.getRunningConfig().getToml();
+        Toml config = root.containsTable("matchmaking") ? root.getTable("matchmaking") : new Toml();
+        if (++ticks < config.getLong("interval", 20L)) return;
+        ticks = 0;
+        pair(config.getLong("rating_window", 100L), config.getLong("rating_window_growth", 10L));
+    }
+
+    // Pair neighbours in each ladder while their rating gap is within both players' windows
+    private void pair(long baseWindow, long windowGrowth) {
+        long now = System.currentTimeMillis();
+        List<QueueEntry[]> matches = new ArrayList<>();
+        for (TreeSet<QueueEntry> ladder : ladders.values()) {
+            QueueEntry previous = null;
+            for (QueueEntry entry : ladder) {
+                if (previous != null) {
+                    long window = Math.min(getWindow(previous, now, baseWindow, windowGrowth), getWindow(entry, now, baseWindow, windowGrowth));
+                    if (entry.getRating() - previous.getRating() <= window) {
+                        matches.add(new QueueEntry[]{previous, entry});
+                        previous = null;
+                        continue;
+                    }
+                }
+                previous = entry;
+            }
+        }
+
+        for (QueueEntry[] match : matches) {
+            // Drop players that went into an arena or a duel while queued, their opponent keeps waiting
+            if (!isAvailable(match[0].getPlayer()) || !isAvailable(match[1].getPlayer())) {
+                if (!isAvailable(match[0].getPlayer())) leave(match[0].getPlayer());
+                if (!isAvailable(match[1].getPlayer())) leave(match[1].getPlayer());
+                continue;
+            }
+
+            Arena arena = duelManager.acquireArena();
+            if (arena == null) return; // everyone left keeps their place until an arena frees up
+            startMatch(arena, match[0], match[1]);
+        }
+    }
+
+    private boolean isAvailable(Player player) {
+        return player.isOnline() && duelManager.getDuelByParticipant(player) == null && !PVPHelper.INSTANCE.getArenaManager().isPlayerInArena(player);
+    }
+
+    private long getWindow(QueueEntry entry, long now, long baseWindow, long windowGrowth) {
+        return baseWindow + windowGrowth * ((now - entry.getJoinedAt()) / 1000L);
+    }
+
+    private void startMatch(Arena arena, QueueEntry first, QueueEntry second) {
+        if (first.getKitName() != null) {
+            Kit kit = PVPHelper.INSTANCE.getKitManager().getKit(null, first.getKitName());
+            if (kit != null) kit.equip(Arrays.asList(first.getPlayer(), second.getPlayer()));
+        }
+
+        duelManager.startDuel(arena, first.getPlayer(), second.getPlayer(), first.isRanked());
+        Utils.sendMessage(first.getPlayer(), String.format("&bMatched against &a%s&b!", second.getPlayer().getName()));
+        Utils.sendMessage(second.getPlayer(), String.format("&bMatched against &a%s&b!", first.getPlayer().getName()));
+    }
+}
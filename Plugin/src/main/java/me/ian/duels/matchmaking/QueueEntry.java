@@ -0,0 +1,30 @@
+package me.ian.duels.matchmaking;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.entity.Player;
+
+@RequiredArgsConstructor
+@Getter
+public class QueueEntry implements Comparable<QueueEntry> {
+
+    private final Player player;
+    private final int rating;
+    private final String kitName; // null to duel with whatever the players already have
+    private final boolean ranked;
+    private final long joinedAt = System.currentTimeMillis();
+
+    // The ladder this entry is matched within, players only get paired with the same kit and ranked mode
+    public String getLadder() {
+        return (ranked ? "ranked:" : "unranked:") + (kitName == null ? "" : kitName.toLowerCase());
+    }
+
+    // Ordered by rating, then by who joined first
+    @Override
+    public int compareTo(QueueEntry other) {
+        int compare = Integer.compare(rating, other.rating);
+        if (compare == 0) compare = Long.compare(joinedAt, other.joinedAt);
+        if (compare == 0) compare = player.getUniqueId().compareTo(other.player.getUniqueId());
+        return compare;
+    }
+}
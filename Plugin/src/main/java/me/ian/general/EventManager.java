@@ -45,7 +45,9 @@ public class EventManager {
         listeners.add(frameListeners);
         dispatcher.register(frameListeners, PacketPlayInUseEntity.class);
 
-        dispatcher.register(new PacketLimit(), (Class<? extends Packet<?>>) null);
+        PacketLimit packetLimit = new PacketLimit();
+        listeners.add(packetLimit);
+        dispatcher.register(packetLimit, (Class<? extends Packet<?>>) null);
     }
 
     public void registerEvents() {
@@ -1,9 +1,12 @@
 package me.ian.general.listeners;
 
+import com.moandjiezana.toml.Toml;
 import me.ian.PVPHelper;
-import me.ian.mixin.event.ItemCreateEvent;
+import me.ian.kits.event.PlayerEquipKitEvent;
+import me.ian.mixin.event.TickCallbacks;
+import me.ian.utils.ContainerScanner;
+import me.ian.utils.EnchantValidator;
 import me.ian.utils.ItemUtils;
-import me.ian.utils.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -16,36 +19,197 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockDispenseEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.entity.EntityPortalEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
-import org.bukkit.event.inventory.InventoryMoveItemEvent;
-import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.PlayerAttemptPickupItemEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerSwapHandItemsEvent;
-import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.concurrent.TimeUnit;
+import java.util.*;
 
+/**
+ * Reverts over-enchanted items.
+ * Instead of checking every open inventory of every player on a timer, only the slots that changed since the last tick
+ * are checked: clicks, creative slot sets, drags, pickups, opened containers, joins and kit equips mark them dirty.
+ * A slow full sweep still runs every `item_revert.sweep_interval` seconds to catch anything that changed another way,
+ * spread over many ticks by checking at most `item_revert.sweep_players_per_tick` players per tick.
+ * <p>
+ * Items inside container items are checked too. All nested scans share a budget of `item_revert.container_budget`
+ * item tags per tick. Dirty inventories take turns: one that runs out of budget keeps its place in the nested scan and
+ * goes to the back of the line, so every other dirty inventory is looked at before it continues.
+ * Scans done right away for pickups, dispensers and hoppers get the same limit on their own, a container holding more
+ * than that is treated as illegal.
+ */
 public class ItemRevertListener extends ItemUtils implements Listener {
 
+    private final Map<Inventory, DirtyInventory> dirty = new HashMap<>();
+    private final Deque<Inventory> turns = new ArrayDeque<>();
+    private final Deque<UUID> sweepQueue = new ArrayDeque<>();
+    private final long sweepIntervalTicks;
+    private final int sweepPlayersPerTick;
+    private final int containerBudget;
+    private long ticksUntilSweep;
+
     public ItemRevertListener() {
-        PVPHelper.EXECUTOR_SERVICE.scheduleAtFixedRate(() -> {
-            Utils.run(() -> {
-                Bukkit.getOnlinePlayers().forEach(player -> {
-                    InventoryView view = player.getOpenInventory();
-                    if (view != null) {
-                        revertInventory(view.getTopInventory());
-                        revertInventory(view.getBottomInventory());
-                    } else {
-                        revertInventory(player.getInventory());
-                    }
-                });
-            });
-        }, 0L, 3000L, TimeUnit.MILLISECONDS);
+        Toml root = PVPHelper.INSTANCE.getRunningConfig().getToml();
+        Toml config = root.containsTable("item_revert") ? root.getTable("item_revert") : new Toml();
+        sweepIntervalTicks = config.getLong("sweep_interval", 60L) * 20L;
+        sweepPlayersPerTick = config.getLong("sweep_players_per_tick", 4L).intValue();
+        containerBudget = config.getLong("container_budget", 2048L).intValue();
+        ticksUntilSweep = sweepIntervalTicks;
+        TickCallbacks.register(PVPHelper.INSTANCE, "Item Revert", this::onTick);
+    }
+
+    public void markDirty(Inventory inventory, int slot) {
+        if (inventory == null || slot < 0 || slot >= inventory.getSize()) return;
+        getDirty(inventory).slots.set(slot);
+    }
+
+    public void markDirty(Inventory inventory) {
+        if (inventory == null) return;
+        getDirty(inventory).slots.set(0, inventory.getSize());
+    }
+
+    private DirtyInventory getDirty(Inventory inventory) {
+        DirtyInventory state = dirty.get(inventory);
+        if (state == null) {
+            state = new DirtyInventory(inventory.getSize());
+            dirty.put(inventory, state);
+            turns.add(inventory);
+        }
+        return state;
+    }
+
+    private void markDirty(Player player) {
+        InventoryView view = player.getOpenInventory();
+        if (view != null) markDirty(view.getTopInventory());
+        markDirty(player.getInventory());
+    }
+
+    private void onTick(int tick) {
+        if (sweepIntervalTicks > 0 && --ticksUntilSweep <= 0) {
+            ticksUntilSweep = sweepIntervalTicks;
+            Bukkit.getOnlinePlayers().forEach(player -> sweepQueue.add(player.getUniqueId()));
+        }
+        for (int i = 0; i < sweepPlayersPerTick && !sweepQueue.isEmpty(); i++) {
+            Player player = Bukkit.getPlayer(sweepQueue.poll());
+            if (player != null) markDirty(player);
+        }
+
+        int budget = containerBudget;
+        while (budget > 0 && !turns.isEmpty()) {
+            Inventory inventory = turns.poll();
+            DirtyInventory state = dirty.get(inventory);
+            budget = check(inventory, state, budget);
+            if (state.isDone()) dirty.remove(inventory);
+            else turns.add(inventory);
+        }
+    }
+
+    /**
+     * Checks the dirty slots of an inventory, continuing the nested scan it was in the middle of first.
+     *
+     * @return The budget left over, 0 if the inventory still has work left.
+     */
+    private int check(Inventory inventory, DirtyInventory state, int budget) {
+        if (state.scan != null) {
+            budget = state.scan.run(budget);
+            if (!state.scan.isDone()) return budget;
+            state.scan = null;
+        }
+
+        int size = inventory.getSize();
+        for (int slot = state.slots.nextSetBit(0); slot >= 0 && slot < size; slot = state.slots.nextSetBit(slot + 1)) {
+            // Cleared before the scan, so a change made while the scan is paused marks the slot again
+            state.slots.clear(slot);
+            ItemStack item = inventory.getItem(slot);
+            revertItemStack(item);
+            ContainerScanner.Scan scan = startScan(item);
+            budget = scan.run(budget);
+            if (!scan.isDone()) {
+                state.scan = scan;
+                return budget;
+            }
+        }
+        return budget;
+    }
+
+    private static ContainerScanner.Scan startScan(ItemStack itemStack) {
+        net.minecraft.server.v1_12_R1.ItemStack handle = EnchantValidator.getHandle(itemStack);
+        return ContainerScanner.start(handle == null ? null : handle.getTag());
+    }
+
+    /**
+     * Reverts illegal items inside a container item right away, looking at no more than `container_budget` of them.
+     *
+     * @return How many items were reverted, or -1 if the container holds too many items to check.
+     */
+    private int scanContents(ItemStack itemStack) {
+        ContainerScanner.Scan scan = startScan(itemStack);
+        scan.run(containerBudget);
+        return scan.isDone() ? scan.getReverted() : -1;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClick(InventoryClickEvent event) {
+        switch (event.getAction()) {
+            case PLACE_ALL:
+            case PLACE_ONE:
+            case PLACE_SOME:
+            case SWAP_WITH_CURSOR:
+                markDirty(event.getClickedInventory(), event.getSlot());
+                break;
+            case PICKUP_ALL:
+            case PICKUP_HALF:
+            case PICKUP_ONE:
+            case PICKUP_SOME:
+            case DROP_ALL_SLOT:
+            case DROP_ONE_SLOT:
+            case DROP_ALL_CURSOR:
+            case DROP_ONE_CURSOR:
+            case NOTHING:
+                break;
+            default:
+                // Shift clicks, hotbar swaps and double clicks can move items anywhere in the view
+                markDirty(event.getView().getTopInventory());
+                markDirty(event.getView().getBottomInventory());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCreativeSet(InventoryCreativeEvent event) {
+        markDirty(event.getClickedInventory(), event.getSlot());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrag(InventoryDragEvent event) {
+        markDirty(event.getView().getTopInventory());
+        markDirty(event.getView().getBottomInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onOpen(InventoryOpenEvent event) {
+        markDirty(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickedUp(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player) markDirty(((Player) event.getEntity()).getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipKit(PlayerEquipKitEvent event) {
+        markDirty(event.getPlayer().getInventory());
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        markDirty(event.getPlayer().getInventory());
     }
 
     @EventHandler
@@ -53,6 +217,12 @@ public class ItemRevertListener extends ItemUtils implements Listener {
         if (isIllegal(event.getItem().getItemStack())) {
             event.setCancelled(true);
             event.getItem().remove();
+            return;
+        }
+        // The item entity holds the real stack, so its contents are reverted in place
+        if (scanContents(event.getItem().getItemStack()) < 0) {
+            event.setCancelled(true);
+            event.getItem().remove();
         }
     }
 
@@ -67,7 +237,7 @@ public class ItemRevertListener extends ItemUtils implements Listener {
 
     @EventHandler
     public void onDispense(BlockDispenseEvent event) {
-        if (event.getItem() != null && isIllegal(event.getItem())) {
+        if (event.getItem() != null && (isIllegal(event.getItem()) || scanContents(event.getItem()) != 0)) {
             event.setCancelled(true);
         }
     }
@@ -104,11 +274,25 @@ public class ItemRevertListener extends ItemUtils implements Listener {
     @EventHandler
     public void onCreate(InventoryMoveItemEvent event) {
         if (event.getDestination().getLocation().getWorld().getEnvironment() != World.Environment.NETHER) {
-            if (isIllegal(event.getItem())) {
+            if (isIllegal(event.getItem()) || scanContents(event.getItem()) != 0) {
                 event.getItem().setAmount(-1);
                 event.getDestination().getLocation().getBlock().setType(Material.AIR);
                 event.getDestination().getViewers().forEach(entity -> entity.sendMessage(ChatColor.RED + "32ks are not enabled in this area."));
             }
         }
     }
+
+    private static class DirtyInventory {
+        private final BitSet slots;
+        // Nested scan of a slot that ran out of budget, continued on this inventory's next turn
+        private ContainerScanner.Scan scan;
+
+        private DirtyInventory(int size) {
+            this.slots = new BitSet(size);
+        }
+
+        private boolean isDone() {
+            return scan == null && slots.isEmpty();
+        }
+    }
 }
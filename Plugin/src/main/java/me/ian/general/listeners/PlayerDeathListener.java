@@ -3,6 +3,7 @@ package me.ian.general.listeners;
 import com.moandjiezana.toml.Toml;
 import me.ian.PVPHelper;
 import me.ian.mixin.event.PlayerPreDeathEvent;
+import me.ian.stats.StatsManager;
 import me.ian.utils.Utils;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.HoverEvent;
@@ -62,6 +63,7 @@ public class PlayerDeathListener implements Listener {
     public void onDeath(PlayerDeathEvent event) {
         event.setDeathMessage(null);
         Player player = event.getEntity();
+        StatsManager stats = PVPHelper.INSTANCE.getStatsManager();
         if (player.getLastDamageCause() instanceof EntityDamageByEntityEvent) {
             Toml config = PVPHelper.INSTANCE.getRunningConfig().getToml();
             EntityDamageByEntityEvent playerDamageEvent = (EntityDamageByEntityEvent) player.getLastDamageCause();
@@ -72,19 +74,23 @@ public class PlayerDeathListener implements Listener {
                     EntityDamageByEntityEvent crystalDamageEvent = (EntityDamageByEntityEvent) crystal.getLastDamageCause();
                     if (crystalDamageEvent.getDamager() instanceof Player) {
                         Player crystalHitter = (Player) crystalDamageEvent.getDamager();
+                        stats.recordKill(crystalHitter, player, "crystal");
                         if (Objects.equals(crystalHitter, player)) {
                             Utils.broadcastMessage(config.getString("crystal_player_suicide").replace("%victim%", player.getName()));
                         } else {
                             Utils.broadcastMessage(config.getString("crystal_player_kill").replace("%killer%", crystalHitter.getName()).replace("%victim%", player.getName()));
                         }
+                        return;
                     }
                 }
+                stats.recordKill(null, player, "crystal");
                 return;
             }
 
             if (playerDamageEvent.getDamager() instanceof Creeper) {
                 Creeper creeper = (Creeper) playerDamageEvent.getDamager();
-                Player placer = Bukkit.getPlayer(creeper.getMetadata("placer").get(0).asString());
+                Player placer = creeper.hasMetadata("placer") ? Bukkit.getPlayer(creeper.getMetadata("placer").get(0).asString()) : null;
+                stats.recordKill(placer, player, "creeper");
                 if (placer == null) return;
                 if (Objects.equals(placer, player)) {
                     Utils.broadcastMessage(config.getString("creeper_player_suicide").replace("%victim%", player.getName()));
@@ -96,6 +102,7 @@ public class PlayerDeathListener implements Listener {
 
             if (playerDamageEvent.getDamager() instanceof Player && player.getKiller() != null) {
                 Player killer = player.getKiller();
+                stats.recordKill(killer, player, "melee");
                 BaseComponent mainComponent = new TextComponent(Utils.translateChars(String.format("&3%s &4killed &3%s", killer.getName(), player.getName())));
                 if (killer.getInventory().getItemInMainHand() != null) {
                     ItemStack weapon = killer.getInventory().getItemInMainHand();
@@ -106,8 +113,10 @@ public class PlayerDeathListener implements Listener {
                 }
 
                 Bukkit.broadcast(mainComponent);
+                return;
             }
         }
+        stats.recordKill(player.getKiller(), player, "other");
     }
 
     private String convertItemStackToJson(ItemStack itemStack) {
@@ -19,9 +19,10 @@ import org.bukkit.event.player.PlayerMoveEvent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
-public class Boatfly extends ViolationManager implements PacketListener, Listener {
+public class Boatfly extends ViolationManager<UUID> implements PacketListener, Listener {
 
     private final List<Player> players = new ArrayList<>();
     private int time = 0;
@@ -40,8 +41,7 @@ public class Boatfly extends ViolationManager implements PacketListener, Listene
         Entity entity = packet.a(world);
         if (entity == null) return;
         if (entity instanceof EntityBoat && (action.equals(PacketPlayInUseEntity.EnumEntityUseAction.INTERACT_AT) || action.equals(PacketPlayInUseEntity.EnumEntityUseAction.INTERACT))) {
-            increment(player.getUniqueId().hashCode());
-            if (getVLS(player.getUniqueId().hashCode()) > 15) {
+            if (increment(player.getUniqueId()) > 15) {
                 event.setCancelled(true);
                 entity.die();
                 PVPHelper.INSTANCE.getLogger().log(Level.INFO, String.format("[Boatfly] Stopped %s from boatflying", player.getName()));
@@ -1,6 +1,8 @@
 package me.ian.general.listeners.patches;
 
-import me.ian.ViolationManager;
+import me.ian.LongViolationManager;
+import org.bukkit.Chunk;
+import org.bukkit.craftbukkit.v1_12_R1.CraftWorld;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Vehicle;
 import org.bukkit.event.EventHandler;
@@ -9,7 +11,7 @@ import org.bukkit.event.vehicle.VehicleEntityCollisionEvent;
 
 import java.util.Arrays;
 
-public class EntityCollisions extends ViolationManager implements Listener {
+public class EntityCollisions extends LongViolationManager implements Listener {
     public EntityCollisions() {
         super(1);
     }
@@ -18,11 +20,19 @@ public class EntityCollisions extends ViolationManager implements Listener {
     public void onCollide(VehicleEntityCollisionEvent event) {
         if (event.getEntity().getVehicle() == event.getVehicle()) return;
         Vehicle vehicle = event.getVehicle();
-        increment(vehicle.getChunk().hashCode());
-        if (getVLS(vehicle.getChunk().hashCode()) > 5000) {
-            Vehicle[] vehicles = Arrays.stream(vehicle.getChunk().getEntities()).filter(e -> e instanceof Vehicle).toArray(Vehicle[]::new);
+        Chunk chunk = vehicle.getChunk();
+        long chunkKey = getChunkKey(chunk);
+        if (increment(chunkKey) > 5000) {
+            Vehicle[] vehicles = Arrays.stream(chunk.getEntities()).filter(e -> e instanceof Vehicle).toArray(Vehicle[]::new);
             Arrays.stream(vehicles).forEach(Entity::remove);
-            remove(vehicle.getChunk().hashCode());
+            remove(chunkKey);
         }
     }
+
+    // Chunk coordinates fit in 22 bits each inside the world border, the rest holds the world's dimension id so every
+    // world counts its chunks separately
+    private static long getChunkKey(Chunk chunk) {
+        int dimension = ((CraftWorld) chunk.getWorld()).getHandle().dimension;
+        return ((long) (dimension & 0xFFFFF) << 44) | ((long) (chunk.getX() & 0x3FFFFF) << 22) | (chunk.getZ() & 0x3FFFFF);
+    }
 }
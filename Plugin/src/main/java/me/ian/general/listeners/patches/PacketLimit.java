@@ -1,32 +1,183 @@
 package me.ian.general.listeners.patches;
 
+import com.moandjiezana.toml.Toml;
 import me.ian.PVPHelper;
-import me.ian.ViolationManager;
 import me.ian.utils.PlayerUtils;
+import me.ian.utils.Utils;
 import me.txmc.protocolapi.PacketEvent;
 import me.txmc.protocolapi.PacketListener;
+import net.minecraft.server.v1_12_R1.PacketPlayInKeepAlive;
+import net.minecraft.server.v1_12_R1.PacketPlayInSetCreativeSlot;
+import net.minecraft.server.v1_12_R1.PacketPlayInTeleportAccept;
+import net.minecraft.server.v1_12_R1.PacketPlayInTransaction;
+import net.minecraft.server.v1_12_R1.PacketPlayInWindowClick;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 
-public class PacketLimit extends ViolationManager implements PacketListener {
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-    private final long RATE_LIMIT;
+/**
+ * Rate limits inbound packets with token buckets.
+ * <p>
+ * Every player has a shared bucket that refills `packet_limit.rate` tokens per second up to `packet_limit.burst`,
+ * and every packet takes its cost out of it. Packet types listed under `packet_limit.types` can have their own cost and
+ * an extra bucket of `budget` tokens per second, so floods of expensive packets are caught long before cheap ones.
+ * Once a bucket runs dry packets are dropped, and a player that keeps sending until they are `packet_limit.kick_debt`
+ * tokens in debt is kicked.
+ * Dropping a window click or creative slot packet leaves the client showing a move the server never made, so the
+ * player's inventory is sent again on the next tick.
+ * <p>
+ * Runs on the player's netty thread, which is always the same one, so the buckets are not synchronized.
+ */
+public class PacketLimit implements PacketListener, Listener {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000D;
+
+    private final double rate;
+    private final double burst;
+    private final double kickDebt;
+    private final Map<String, Rule> configuredRules = new HashMap<>();
+    private final Rule defaultRule = new Rule(-1, 1, 0, true, false);
+    private final Map<UUID, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // Resolved once per packet class
+    private final ClassValue<Rule> rules = new ClassValue<Rule>() {
+        @Override
+        protected Rule computeValue(Class<?> type) {
+            Rule rule = configuredRules.get(type.getSimpleName());
+            boolean droppable = type != PacketPlayInKeepAlive.class && type != PacketPlayInTeleportAccept.class && type != PacketPlayInTransaction.class;
+            boolean resync = type == PacketPlayInWindowClick.class || type == PacketPlayInSetCreativeSlot.class;
+            if (rule == null) return droppable && !resync ? defaultRule : new Rule(-1, 1, 0, droppable, resync);
+            return new Rule(rule.index, rule.cost, rule.budget, droppable, resync);
+        }
+    };
 
     public PacketLimit() {
-        super(1, 400);
-        RATE_LIMIT = PVPHelper.INSTANCE.getRunningConfig().getToml().getLong("packet_limit", 400L);
+        Toml root = PVPHelper.INSTANCE.getRunningConfig().getToml();
+        Toml config = root.containsTable("packet_limit") ? root.getTable("packet_limit") : new Toml();
+        rate = config.getLong("rate", root.getLong("packet_limit", 400L));
+        burst = config.getLong("burst", (long) rate * 2);
+        kickDebt = config.getLong("kick_debt", (long) rate);
+
+        Toml types = config.containsTable("types") ? config.getTable("types") : new Toml();
+        for (Map.Entry<String, Object> entry : types.entrySet()) {
+            if (!(entry.getValue() instanceof Toml)) continue;
+            Toml type = (Toml) entry.getValue();
+            long budget = type.getLong("budget", 0L);
+            configuredRules.put(entry.getKey(), new Rule(budget > 0 ? configuredRules.size() : -1, type.getLong("cost", 1L), budget, true, false));
+        }
     }
 
     @Override
     public void incoming(PacketEvent.Incoming event) throws Throwable {
-        increment(event.getPlayer().getUniqueId().hashCode());
-        int vls = getVLS(event.getPlayer().getUniqueId().hashCode());
-        if (vls > RATE_LIMIT) {
-            remove(event.getPlayer().getUniqueId().hashCode());
-            PlayerUtils.kick(event.getPlayer(), String.format("Packet-per-second limit reached. %s vls", vls));
+        Player player = event.getPlayer();
+        UUID uuid = player.getUniqueId();
+        Bucket bucket = buckets.get(uuid);
+        if (bucket == null) {
+            // Packets can still arrive after the quit event removed the bucket, those must not create a new one
+            if (!player.isOnline()) return;
+            Bucket created = new Bucket(burst, configuredRules.size());
+            bucket = buckets.putIfAbsent(uuid, created);
+            if (bucket == null) {
+                bucket = created;
+                if (!player.isOnline()) buckets.remove(uuid, created); // quit in between
+            }
         }
+
+        Rule rule = rules.get(event.getPacket().getClass());
+        long now = System.nanoTime();
+        bucket.refill(now, rate, burst);
+        bucket.tokens -= rule.cost;
+
+        boolean overBudget = false;
+        if (rule.index >= 0) {
+            bucket.refillType(rule.index, now, rule.budget);
+            bucket.typeTokens[rule.index] -= rule.cost;
+            overBudget = bucket.typeTokens[rule.index] < 0;
+        }
+
+        if (bucket.tokens >= 0 && !overBudget) return;
+        if (rule.droppable) {
+            event.setCancelled(true);
+            if (rule.resync) resync(event.getPlayer(), bucket);
+        }
+
+        double debt = Math.max(-bucket.tokens, rule.index >= 0 ? -bucket.typeTokens[rule.index] : 0);
+        if (debt > kickDebt && !bucket.kicked) {
+            bucket.kicked = true;
+            PlayerUtils.kick(event.getPlayer(), String.format("Packet limit reached. %s tokens in debt on %s", (int) debt, event.getPacket().getClass().getSimpleName()));
+        }
+    }
+
+    // At most one inventory update is queued per player, however many clicks are dropped before it runs
+    private void resync(Player player, Bucket bucket) {
+        if (!bucket.resyncQueued.compareAndSet(false, true)) return;
+        Utils.run(() -> {
+            bucket.resyncQueued.set(false);
+            if (player.isOnline()) player.updateInventory();
+        });
     }
 
     @Override
     public void outgoing(PacketEvent.Outgoing event) throws Throwable {
 
     }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        buckets.remove(event.getPlayer().getUniqueId());
+    }
+
+    private static class Rule {
+        private final int index; // bucket of this packet type, -1 if it has no budget of its own
+        private final double cost;
+        private final double budget;
+        private final boolean droppable;
+        private final boolean resync; // the client has to be sent its inventory again when this is dropped
+
+        private Rule(int index, double cost, double budget, boolean droppable, boolean resync) {
+            this.index = index;
+            this.cost = cost;
+            this.budget = budget;
+            this.droppable = droppable;
+            this.resync = resync;
+        }
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long lastRefill;
+        private final double[] typeTokens;
+        private final long[] typeLastRefill;
+        private boolean kicked;
+        private final AtomicBoolean resyncQueued = new AtomicBoolean(); // also cleared on the main thread
+
+        private Bucket(double burst, int types) {
+            long now = System.nanoTime();
+            tokens = burst;
+            lastRefill = now;
+            typeTokens = new double[types];
+            typeLastRefill = new long[types];
+            for (int i = 0; i < types; i++) {
+                typeTokens[i] = Double.MAX_VALUE; // capped to the budget on the first refill
+                typeLastRefill[i] = now;
+            }
+        }
+
+        private void refill(long now, double rate, double burst) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / NANOS_PER_SECOND);
+            lastRefill = now;
+        }
+
+        private void refillType(int index, long now, double budget) {
+            typeTokens[index] = Math.min(budget, typeTokens[index] + (now - typeLastRefill[index]) * budget / NANOS_PER_SECOND);
+            typeLastRefill[index] = now;
+        }
+    }
 }
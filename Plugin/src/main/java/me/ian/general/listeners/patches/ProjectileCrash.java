@@ -2,8 +2,6 @@ package me.ian.general.listeners.patches;
 
 import me.ian.PVPHelper;
 import net.minecraft.server.v1_12_R1.*;
-import org.bukkit.Location;
-import org.bukkit.craftbukkit.v1_12_R1.CraftWorld;
 import org.bukkit.craftbukkit.v1_12_R1.entity.CraftEntity;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -13,15 +11,14 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.ProjectileLaunchEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
-import org.bukkit.util.Vector;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.logging.Level;
 
 public class ProjectileCrash implements Listener {
 
-    private final List<EntityType> validEntities = Arrays.asList(EntityType.SMALL_FIREBALL, EntityType.FIREBALL, EntityType.DRAGON_FIREBALL, EntityType.ARROW, EntityType.SPECTRAL_ARROW, EntityType.TIPPED_ARROW, EntityType.SNOWBALL, EntityType.ENDER_PEARL, EntityType.EGG, EntityType.LINGERING_POTION, EntityType.SPLASH_POTION, EntityType.THROWN_EXP_BOTTLE, EntityType.WITHER_SKULL);
+    private final Set<EntityType> validEntities = EnumSet.of(EntityType.SMALL_FIREBALL, EntityType.FIREBALL, EntityType.DRAGON_FIREBALL, EntityType.ARROW, EntityType.SPECTRAL_ARROW, EntityType.TIPPED_ARROW, EntityType.SNOWBALL, EntityType.ENDER_PEARL, EntityType.EGG, EntityType.LINGERING_POTION, EntityType.SPLASH_POTION, EntityType.THROWN_EXP_BOTTLE, EntityType.WITHER_SKULL);
 
     public static float getMotionModifier(org.bukkit.entity.Entity entity) {
         switch (entity.getType()) {
@@ -59,8 +56,7 @@ public class ProjectileCrash implements Listener {
     public void onLaunch(ProjectileLaunchEvent event) {
         Projectile projectile = event.getEntity();
         if (validEntities.contains(projectile.getType())) {
-            MovingObjectPosition trace = traceEntity(projectile);
-            if (trace == null || trace.a() == null || trace.a() != null && !projectile.getWorld().getChunkAt(trace.a().getX(), trace.a().getZ()).isLoaded()) {
+            if (predictLanding(projectile) == null) {
                 projectile.remove();
                 PVPHelper.INSTANCE.getLogger().log(Level.INFO, String.format("Removed entity %s that could not have its final location raytraced World: %s, X: %s, Y: %s, Z: %s", projectile.getType().toString(), projectile.getWorld().getName(), projectile.getLocation().getX(), projectile.getLocation().getY(), projectile.getLocation().getZ()));
             }
@@ -74,50 +70,21 @@ public class ProjectileCrash implements Listener {
         }
     }
 
-    public MovingObjectPosition traceEntity(Entity entity) {
-        World world = ((CraftWorld) entity.getWorld()).getHandle();
+    /**
+     * @return The block the projectile will land on, or null if it never lands in a loaded chunk.
+     */
+    public BlockPosition predictLanding(Entity entity) {
         net.minecraft.server.v1_12_R1.Entity nmsEntity = ((CraftEntity) entity).getHandle();
-        Location loc = entity.getLocation();
-        MovingObjectPosition landing = null;
-        double posX = loc.getX();
-        double posY = loc.getY();
-        double posZ = loc.getZ();
-        BlockPosition originalPosition = new BlockPosition(posX, posY, posZ);
-        float gravityModifier = getGravityModifier(entity);
-        float motionModifier = getMotionModifier(entity);
-
-        Vector velocity = new Vector(nmsEntity.motX, nmsEntity.motY, nmsEntity.motZ);
+        double motionX = nmsEntity.motX;
+        double motionY = nmsEntity.motY;
+        double motionZ = nmsEntity.motZ;
         if (nmsEntity instanceof EntityFireball) {
             EntityFireball fireball = (EntityFireball) nmsEntity;
-            velocity = new Vector(fireball.dirX, fireball.dirY, fireball.dirZ);
+            motionX = fireball.dirX;
+            motionY = fireball.dirY;
+            motionZ = fireball.dirZ;
         }
-        double motionX = velocity.getX();
-        double motionY = velocity.getY();
-        double motionZ = velocity.getZ();
-
-        boolean hasLanded = false;
-        while (!hasLanded && posY > 0.0D) {
-            double fPosX = posX + motionX;
-            double fPosY = posY + motionY;
-            double fPosZ = posZ + motionZ;
-
-            Vec3D start = new Vec3D(posX, posY, posZ);
-            Vec3D future = new Vec3D(fPosX, fPosY, fPosZ);
 
-            landing = world.rayTrace(start, future);
-            hasLanded = (landing != null) && (landing.a() != null);
-
-            posX = fPosX;
-            posY = fPosY;
-            posZ = fPosZ;
-            motionX *= motionModifier;
-            motionY *= motionModifier;
-            motionZ *= motionModifier;
-            motionY -= gravityModifier;
-
-            double distSquared = originalPosition.distanceSquared(posX, posY, posZ);
-            if (distSquared > 48000) break;
-        }
-        return landing;
+        return TrajectoryPredictor.predict((WorldServer) nmsEntity.world, nmsEntity.locX, nmsEntity.locY, nmsEntity.locZ, motionX, motionY, motionZ, getMotionModifier(entity), getGravityModifier(entity));
     }
 }
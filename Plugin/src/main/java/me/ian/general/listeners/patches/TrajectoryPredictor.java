@@ -0,0 +1,50 @@
+package me.ian.general.listeners.patches;
+
+import me.ian.utils.WorldQuery;
+import net.minecraft.server.v1_12_R1.*;
+
+/**
+ * Predicts where a projectile lands without allocating anything per step.
+ * The flight is stepped the same way as before, but every step is traced with {@link WorldQuery} instead of
+ * {@link World#rayTrace(Vec3D, Vec3D)}, and steps that only pass through empty sections are skipped outright.
+ * Chunks are never loaded, a projectile heading into an unloaded chunk has no landing spot.
+ */
+final class TrajectoryPredictor {
+
+    private static final double MAX_DISTANCE_SQUARED = 48000D;
+
+    private TrajectoryPredictor() {
+    }
+
+    /**
+     * @return The block the projectile lands on, or null if it falls out of the world, flies too far or reaches an unloaded chunk.
+     */
+    static BlockPosition predict(WorldServer world, double x, double y, double z, double motX, double motY, double motZ, float motionModifier, float gravityModifier) {
+        int[] hit = new int[3];
+        double originX = x, originY = y, originZ = z;
+
+        while (y > 0.0D) {
+            double nextX = x + motX;
+            double nextY = y + motY;
+            double nextZ = z + motZ;
+
+            if (!WorldQuery.isEmpty(world, x, y, z, nextX, nextY, nextZ)) {
+                int result = WorldQuery.rayTrace(world, x, y, z, nextX, nextY, nextZ, hit);
+                if (result == WorldQuery.HIT) return new BlockPosition(hit[0], hit[1], hit[2]);
+                if (result == WorldQuery.UNLOADED) return null;
+            }
+
+            x = nextX;
+            y = nextY;
+            z = nextZ;
+            motX *= motionModifier;
+            motY *= motionModifier;
+            motZ *= motionModifier;
+            motY -= gravityModifier;
+
+            double dx = x - originX, dy = y - originY, dz = z - originZ;
+            if (dx * dx + dy * dy + dz * dz > MAX_DISTANCE_SQUARED) break;
+        }
+        return null;
+    }
+}
@@ -4,11 +4,11 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import me.ian.PVPHelper;
 import me.ian.kits.event.PlayerEquipKitEvent;
-import me.ian.utils.NBTUtils;
 import me.ian.utils.Utils;
 import net.minecraft.server.v1_12_R1.NBTTagCompound;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @RequiredArgsConstructor
@@ -19,17 +19,40 @@ public class Kit {
     private final NBTTagCompound compound;
     private final UUID owner;
 
+    // Decoded lazily on the first equip
+    private KitTemplate template;
+
     public boolean isGlobal() {
         return owner == null;
     }
 
+    public KitTemplate getTemplate() {
+        if (template == null) template = KitTemplate.decode(compound);
+        return template;
+    }
+
+    // Call after changing the compound so the next equip decodes it again
+    public void invalidateTemplate() {
+        template = null;
+    }
+
     public void equip(Player player) {
         PlayerEquipKitEvent event = new PlayerEquipKitEvent(player, this);
         PVPHelper.INSTANCE.getServer().getPluginManager().callEvent(event);
         if (!event.isCancelled()) {
-            NBTUtils.setPlayerInventoryFromTag(player, compound);
+            getTemplate().apply(player);
             if (player.hasMetadata("kit_gui")) player.removeMetadata("kit_gui", PVPHelper.INSTANCE);
             Utils.sendMessage(player, String.format("&bEquipped kit &a%s", name));
         }
     }
+
+    /**
+     * Equips the kit to several players at once, decoding it at most once.
+     *
+     * @param players The players to equip.
+     */
+    public void equip(Collection<? extends Player> players) {
+        getTemplate();
+        players.forEach(this::equip);
+    }
 }
@@ -4,48 +4,77 @@ import lombok.Getter;
 import me.ian.PVPHelper;
 import me.ian.kits.gui.KitGui;
 import me.ian.utils.NBTUtils;
+import me.ian.utils.Utils;
+import net.minecraft.server.v1_12_R1.NBTTagCompound;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 @Getter
 public class KitManager implements Listener {
 
-    private final List<Kit> globalKits;
-    private final Map<UUID, List<Kit>> userKits;
-    private final File userKitDataFolder;
-    private final File globalKitDataFolder;
+    // Kits read at pre-login are dropped if their owner hasn't joined within this time, e.g. after disconnecting mid-login
+    private static final long PREFETCH_EXPIRY_MILLIS = 60_000L;
+
+    private final KitMap globalKits;
+    private final Map<UUID, KitMap> userKits;
+
+    // Kits read at pre-login waiting for their owner to join, and kits of players that went offline
+    private final Map<UUID, PrefetchedKits> prefetchedKits = new ConcurrentHashMap<>();
+    private final Map<UUID, KitMap> offlineKitCache;
+    private final KitPack kitPack;
 
     public KitManager() {
-        globalKits = new ArrayList<>();
+        globalKits = new KitMap();
         userKits = new HashMap<>();
 
+        int cacheSize = PVPHelper.INSTANCE.getRunningConfig().getToml().getLong("user_kit_cache_size", 256L).intValue();
+        offlineKitCache = Collections.synchronizedMap(new LinkedHashMap<UUID, KitMap>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, KitMap> eldest) {
+                return size() > cacheSize;
+            }
+        });
+
         File kitDataFolder = new File(PVPHelper.INSTANCE.getDataFolder(), "kits");
-        userKitDataFolder = new File(kitDataFolder, "user");
-        globalKitDataFolder = new File(kitDataFolder, "global");
+        if (!kitDataFolder.exists()) kitDataFolder.mkdirs();
+        File packFile = new File(kitDataFolder, "kits.pack");
         try {
-            if (!kitDataFolder.exists()) kitDataFolder.mkdirs();
-            if (!userKitDataFolder.exists()) userKitDataFolder.mkdirs();
-            if (!globalKitDataFolder.exists()) globalKitDataFolder.mkdirs();
-        } catch (Throwable t) {
-            t.printStackTrace();
+            KitPack pack = new KitPack(packFile);
+            if (pack.isEmpty()) {
+                pack.close();
+                migrateKitFolders(kitDataFolder, packFile);
+                pack = new KitPack(packFile);
+            }
+            kitPack = pack;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the kit pack", e);
         }
 
         // Load Global Kits
-        int count = (int) Arrays.stream(Objects.requireNonNull(globalKitDataFolder.listFiles()))
-                .filter(file -> !file.isDirectory() && file.getName().endsWith(".nbt"))
-                .map(file -> loadKit(null, file.getName().replace(".nbt", "")))
-                .peek(globalKits::add)
-                .count();
-
-        PVPHelper.INSTANCE.getLogger().info(String.format("Loaded %s global kits", count));
+        kitPack.readKits(null).forEach(globalKits::put);
+        PVPHelper.INSTANCE.getLogger().info(String.format("Loaded %s global kits", globalKits.size()));
         PVPHelper.INSTANCE.registerListener(this);
+        Bukkit.getOnlinePlayers().forEach(this::loadUserKitsAsync);
     }
 
     @EventHandler
@@ -60,6 +89,12 @@ public class KitManager implements Listener {
         }
     }
 
+    // Kit GUIs are read only, nothing may be dragged into them
+    @EventHandler
+    public void onDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked().hasMetadata("kit_gui")) event.setCancelled(true);
+    }
+
     @EventHandler
     public void onClose(InventoryCloseEvent event) {
         Player player = (Player) event.getPlayer();
@@ -67,110 +102,189 @@ public class KitManager implements Listener {
         if (player.hasMetadata("kit_gui")) player.removeMetadata("kit_gui", PVPHelper.INSTANCE);
     }
 
-    // Load User kits
+    // Read user kits off the main thread before the player joins
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        long now = System.currentTimeMillis();
+        prefetchedKits.values().removeIf(prefetched -> now - prefetched.time > PREFETCH_EXPIRY_MILLIS);
+        if (offlineKitCache.containsKey(event.getUniqueId())) return;
+        prefetchedKits.put(event.getUniqueId(), new PrefetchedKits(readUserKits(event.getUniqueId()), now));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) prefetchedKits.remove(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         UUID playerUUID = player.getUniqueId();
-        File kitOwnerDataFolder = new File(userKitDataFolder, playerUUID.toString());
 
-        // Ensure the directory exists
-        if (!kitOwnerDataFolder.exists() || !kitOwnerDataFolder.isDirectory()) {
-            kitOwnerDataFolder.mkdirs(); // Create the directory if it doesn't exist
-            return; // No kits to load if the folder didn't exist
+        // Kits kept from an earlier session are newer than anything read from disk at pre-login
+        KitMap cached = offlineKitCache.remove(playerUUID);
+        PrefetchedKits prefetched = prefetchedKits.remove(playerUUID);
+        KitMap kits = cached != null ? cached : prefetched != null ? prefetched.kits : null;
+        if (kits == null) {
+            loadUserKitsAsync(player);
+            return;
         }
 
-        List<Kit> kits = userKits.computeIfAbsent(playerUUID, k -> new ArrayList<>());
-        for (File file : Objects.requireNonNull(kitOwnerDataFolder.listFiles())) {
-            if (!file.isDirectory() && file.getName().endsWith(".nbt")) {
-                String kitName = file.getName().replace(".nbt", "");
-                Kit kit = loadKit(playerUUID, kitName);
-                if (kit != null) {
-                    kits.add(kit); // Add to the user's kit list
+        userKits.put(playerUUID, kits);
+        if (cached == null) PVPHelper.INSTANCE.getLogger().info(String.format("Loaded %d kits for player %s", kits.size(), player.getName()));
+    }
+
+    // Keep the kits around in case the player reconnects, the least recently used ones are dropped once the cache is full
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        UUID playerUUID = event.getPlayer().getUniqueId();
+        prefetchedKits.remove(playerUUID);
+        KitMap kits = userKits.remove(playerUUID);
+        if (kits != null) offlineKitCache.put(playerUUID, kits);
+    }
+
+    // Fallback for players that were not prefetched, e.g. when the plugin is enabled while they are online
+    private void loadUserKitsAsync(Player player) {
+        UUID playerUUID = player.getUniqueId();
+        CompletableFuture.supplyAsync(() -> readUserKits(playerUUID), PVPHelper.EXECUTOR_SERVICE).thenAccept(loaded -> Utils.run(() -> {
+            if (!player.isOnline()) return;
+
+            // Kits created while loading take priority over the ones on disk
+            KitMap kits = userKits.computeIfAbsent(playerUUID, k -> new KitMap());
+            loaded.stream()
+                    .filter(kit -> !kits.contains(kit.getName()))
+                    .forEach(kits::put);
+            PVPHelper.INSTANCE.getLogger().info(String.format("Loaded %d kits for player %s", loaded.size(), player.getName()));
+        }));
+    }
+
+    /**
+     * Imports kits from the old one file per kit layout (kits/global/<name>.nbt and kits/user/<uuid>/<name>.nbt) into the pack.
+     * The pack is built in a temporary file and only moved into place once every kit was imported, so a crash halfway
+     * leaves the old folders to be migrated again. Unreadable kit files are skipped. The old folders are renamed
+     * afterwards so this only happens once.
+     */
+    private void migrateKitFolders(File kitDataFolder, File packFile) throws IOException {
+        File globalKitDataFolder = new File(kitDataFolder, "global");
+        File userKitDataFolder = new File(kitDataFolder, "user");
+        File temp = new File(kitDataFolder, packFile.getName() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        int count = 0;
+
+        try (KitPack pack = new KitPack(temp)) {
+            File[] globalFiles = globalKitDataFolder.listFiles();
+            if (globalFiles != null) {
+                for (File file : globalFiles) {
+                    if (file.isDirectory() || !file.getName().endsWith(".nbt")) continue;
+                    if (migrateKit(pack, file, null)) count++;
+                }
+            }
+
+            File[] ownerFolders = userKitDataFolder.listFiles();
+            if (ownerFolders != null) {
+                for (File ownerFolder : ownerFolders) {
+                    File[] userFiles = ownerFolder.listFiles();
+                    if (userFiles == null) continue;
+
+                    UUID owner;
+                    try {
+                        owner = UUID.fromString(ownerFolder.getName());
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+
+                    for (File file : userFiles) {
+                        if (file.isDirectory() || !file.getName().endsWith(".nbt")) continue;
+                        if (migrateKit(pack, file, owner)) count++;
+                    }
                 }
             }
         }
 
-        PVPHelper.INSTANCE.getLogger().info(String.format("Loaded %d kits for player %s", kits.size(), player.getName()));
+        if (count == 0) {
+            Files.deleteIfExists(temp.toPath());
+            return;
+        }
+        Files.move(temp.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (globalKitDataFolder.exists()) globalKitDataFolder.renameTo(new File(kitDataFolder, "global.migrated"));
+        if (userKitDataFolder.exists()) userKitDataFolder.renameTo(new File(kitDataFolder, "user.migrated"));
+        PVPHelper.INSTANCE.getLogger().info(String.format("Migrated %s kits into %s", count, "kits.pack"));
+    }
+
+    private boolean migrateKit(KitPack pack, File file, UUID owner) throws IOException {
+        NBTTagCompound tag;
+        try {
+            tag = NBTUtils.readTagFromFile(file);
+        } catch (Exception e) {
+            PVPHelper.INSTANCE.getLogger().log(Level.WARNING, String.format("Skipping unreadable kit file %s", file.getPath()), e);
+            return false;
+        }
+        pack.save(new Kit(file.getName().replace(".nbt", ""), tag, owner));
+        return true;
+    }
+
+    /**
+     * Reads all kits of a user from the kit pack. Safe to call off the main thread.
+     *
+     * @param uuid The UUID of the kit owner.
+     * @return The user's kits, empty if they have none.
+     */
+    private KitMap readUserKits(UUID uuid) {
+        return new KitMap(kitPack.readKits(uuid));
     }
 
     /**
-     * Saves a kit to the file system.
-     * The kit will be saved as a `.nbt` file in either the global data folder
-     * or the owner's data folder, depending on whether it is a global kit.
+     * Saves a kit to the kit pack, replacing any kit of the same owner with the same name.
      *
      * @param kit The kit to save.
      */
     public void saveKit(Kit kit) {
-        final String FILE_NAME = String.format("%s.nbt", kit.getName());
-        File kitFile;
-
-        // Check if kit is global
-        if (kit.isGlobal()) {
-            kitFile = new File(globalKitDataFolder, FILE_NAME);
-        } else {
-            File kitOwnerDataFolder = new File(userKitDataFolder, kit.getOwner().toString());
-            if (!kitOwnerDataFolder.exists()) kitOwnerDataFolder.mkdirs();
-            kitFile = new File(kitOwnerDataFolder, FILE_NAME);
-        }
-
-        // Save the kit contents to the file.
+        kit.invalidateTemplate();
         try {
-            if (!kitFile.exists()) kitFile.createNewFile();
-            NBTUtils.writeTagToFile(kit.getCompound(), kitFile);
+            kitPack.save(kit);
         } catch (Throwable t) {
             t.printStackTrace();
         }
     }
 
     /**
-     * Loads a kit from the file system.
-     * Looks for the kit in the global data folder if `uuid` is null,
-     * otherwise, looks in the specified user's data folder.
+     * Loads a kit from the kit pack.
      *
      * @param uuid The UUID of the kit owner. Use null for global kits.
      * @param name The name of the kit to load.
      * @return The loaded kit, or null if the kit does not exist.
      */
     public Kit loadKit(UUID uuid, String name) {
-        final String FILE_NAME = String.format("%s.nbt", name);
-        File kitFile;
-
-        // Check if kit is global
-        if (uuid == null) {
-            kitFile = new File(globalKitDataFolder, FILE_NAME);
-        } else {
-            File kitOwnerDataFolder = new File(userKitDataFolder, uuid.toString());
-            kitFile = new File(kitOwnerDataFolder, FILE_NAME);
-        }
-
-        // Load kit contents from the file.
-        if (!kitFile.exists()) return null;
-        return new Kit(name, NBTUtils.readTagFromFile(kitFile), uuid);
+        return kitPack.readKit(uuid, name);
     }
 
     /**
-     * Removes a kit from the file system and any relevant in-memory collections.
-     * Deletes the `.nbt` file and updates the respective list of kits.
+     * Removes a kit from the kit pack and any relevant in-memory collections.
      *
      * @param kit The kit to remove.
      */
     public void removeKit(Kit kit) {
-        final String FILE_NAME = String.format("%s.nbt", kit.getName());
-        File kitFile;
-
-        // Check if kit is global
         if (kit.isGlobal()) {
-            kitFile = new File(globalKitDataFolder, FILE_NAME);
             globalKits.remove(kit);
         } else {
-            File kitOwnerDataFolder = new File(userKitDataFolder, kit.getOwner().toString());
-            kitFile = new File(kitOwnerDataFolder, FILE_NAME);
-            userKits.get(kit.getOwner()).remove(kit);
+            KitMap kits = userKits.get(kit.getOwner());
+            if (kits != null) kits.remove(kit);
         }
 
-        // Delete the kit file
-        if (kitFile.exists()) kitFile.delete();
+        try {
+            kitPack.remove(kit);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
+
+    public void close() {
+        try {
+            kitPack.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -182,12 +296,17 @@ public class KitManager implements Listener {
      */
     public Kit getKit(UUID uuid, String name) {
         // Determine the source of kits: global or user-specific
-        List<Kit> kits = (uuid == null) ? globalKits : userKits.getOrDefault(uuid, Collections.emptyList());
+        KitMap kits = (uuid == null) ? globalKits : userKits.get(uuid);
+        return kits == null ? null : kits.get(name);
+    }
+
+    private static class PrefetchedKits {
+        private final KitMap kits;
+        private final long time;
 
-        // Find and return the matching kit
-        return kits.stream()
-                .filter(kit -> kit.getName().equalsIgnoreCase(name))
-                .findAny()
-                .orElse(null);
+        private PrefetchedKits(KitMap kits, long time) {
+            this.kits = kits;
+            this.time = time;
+        }
     }
 }
@@ -0,0 +1,98 @@
+package me.ian.kits;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Kits keyed by their name, ignoring case. Keeps the order kits were added in so GUIs and listings stay stable,
+ * replacing a kit keeps its position.
+ */
+public class KitMap implements Iterable<Kit> {
+
+    private final Map<String, Kit> kits = new LinkedHashMap<>();
+
+    // Kits in order for index lookups, rebuilt lazily after a change
+    private Kit[] ordered;
+
+    // Bumped on every change so views built from this map know when they are stale
+    @Getter
+    private int version;
+
+    public KitMap() {
+    }
+
+    public KitMap(Collection<Kit> kits) {
+        kits.forEach(this::put);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public Kit get(String name) {
+        return kits.get(key(name));
+    }
+
+    /**
+     * @return The kit at a position in the order the kits were added in, or null if the index is out of range.
+     */
+    public Kit get(int index) {
+        if (ordered == null) ordered = kits.values().toArray(new Kit[0]);
+        return index >= 0 && index < ordered.length ? ordered[index] : null;
+    }
+
+    public boolean contains(String name) {
+        return kits.containsKey(key(name));
+    }
+
+    /**
+     * Adds a kit, replacing any kit with the same name.
+     *
+     * @return The replaced kit, or null if there was none.
+     */
+    public Kit put(Kit kit) {
+        ordered = null;
+        version++;
+        return kits.put(key(kit.getName()), kit);
+    }
+
+    public Kit remove(String name) {
+        Kit removed = kits.remove(key(name));
+        if (removed != null) {
+            ordered = null;
+            version++;
+        }
+        return removed;
+    }
+
+    // Only removes this exact kit, not a different one that has since replaced it
+    public boolean remove(Kit kit) {
+        if (!kits.remove(key(kit.getName()), kit)) return false;
+        ordered = null;
+        version++;
+        return true;
+    }
+
+    public int size() {
+        return kits.size();
+    }
+
+    public boolean isEmpty() {
+        return kits.isEmpty();
+    }
+
+    public Collection<Kit> values() {
+        return Collections.unmodifiableCollection(kits.values());
+    }
+
+    public Stream<Kit> stream() {
+        return kits.values().stream();
+    }
+
+    @Override
+    public Iterator<Kit> iterator() {
+        return values().iterator();
+    }
+}
@@ -0,0 +1,217 @@
+package me.ian.kits;
+
+import me.ian.PVPHelper;
+import me.ian.utils.NBTUtils;
+import net.minecraft.server.v1_12_R1.NBTTagCompound;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Stores every kit in a single append-only file instead of one file per kit.
+ * <p>
+ * Each record is a length prefix followed by the operation (save or remove), the owner, the kit name and for saves the
+ * kit contents. The file is scanned once on load to build an in-memory index of where the latest record of every kit
+ * starts, after that reading a kit is a single positional read. Reads are safe from any thread.
+ * Overwritten and removed kits leave dead records behind, the file is compacted on load once they take up more
+ * space than the live ones.
+ */
+public class KitPack implements Closeable {
+
+    private static final byte OP_SAVE = 0;
+    private static final byte OP_REMOVE = 1;
+
+    private final File file;
+    private final Map<String, Long> globalIndex = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<String, Long>> userIndex = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private long deadBytes;
+
+    public KitPack(File file) throws IOException {
+        this.file = file;
+        open();
+        if (deadBytes > channel.size() - deadBytes) compact();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        globalIndex.clear();
+        userIndex.clear();
+        deadBytes = 0;
+
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while (position + 4 <= size) {
+            lengthBuffer.clear();
+            channel.read(lengthBuffer, position);
+            int length = lengthBuffer.getInt(0);
+            if (length <= 0 || position + 4 + length > size) break;
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(readRecord(position, length)))) {
+                byte op = in.readByte();
+                UUID owner = readOwner(in);
+                String name = in.readUTF();
+                Long previous = op == OP_SAVE ? getIndex(owner, true).put(name.toLowerCase(Locale.ROOT), position) : removeIndex(owner, name);
+                if (previous != null) deadBytes += recordLength(previous);
+                if (op == OP_REMOVE) deadBytes += 4 + length;
+            }
+            position += 4 + length;
+        }
+
+        // Drop a record that was cut short by a crash
+        if (position < size) {
+            PVPHelper.INSTANCE.getLogger().warning(String.format("Discarding %s bytes of incomplete kit records in %s", size - position, file.getName()));
+            channel.truncate(position);
+        }
+        channel.position(position);
+    }
+
+    private void compact() throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            for (long position : globalIndex.values()) copyRecord(position, out);
+            for (Map<String, Long> index : userIndex.values()) {
+                for (long position : index.values()) copyRecord(position, out);
+            }
+        }
+
+        channel.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    private void copyRecord(long position, DataOutputStream out) throws IOException {
+        int length = recordLength(position) - 4;
+        out.writeInt(length);
+        out.write(readRecord(position, length));
+    }
+
+    /**
+     * @param owner The owner of the kits, or null for global kits.
+     * @return Every kit of the owner, empty if they have none.
+     */
+    public List<Kit> readKits(UUID owner) {
+        Map<String, Long> index = getIndex(owner, false);
+        if (index == null) return new ArrayList<>();
+
+        List<Kit> kits = new ArrayList<>(index.size());
+        for (long position : index.values()) {
+            Kit kit = readKit(position);
+            if (kit != null) kits.add(kit);
+        }
+        return kits;
+    }
+
+    /**
+     * @param owner The owner of the kit, or null for a global kit.
+     * @param name  The name of the kit. Case-insensitive.
+     * @return The kit, or null if it is not in the pack.
+     */
+    public Kit readKit(UUID owner, String name) {
+        Map<String, Long> index = getIndex(owner, false);
+        Long position = index == null ? null : index.get(name.toLowerCase(Locale.ROOT));
+        return position == null ? null : readKit(position);
+    }
+
+    private Kit readKit(long position) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(readRecord(position, recordLength(position) - 4)))) {
+            in.readByte();
+            UUID owner = readOwner(in);
+            String name = in.readUTF();
+            return new Kit(name, NBTUtils.readNBT(in), owner);
+        } catch (IOException e) {
+            PVPHelper.INSTANCE.getLogger().log(Level.SEVERE, String.format("Failed to read kit at %s in %s", position, file.getName()), e);
+            return null;
+        }
+    }
+
+    public synchronized void save(Kit kit) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_SAVE);
+            writeOwner(out, kit.getOwner());
+            out.writeUTF(kit.getName());
+            NBTUtils.writeNBT(kit.getCompound(), out);
+        }
+
+        long position = append(bytes.toByteArray());
+        Long previous = getIndex(kit.getOwner(), true).put(kit.getName().toLowerCase(Locale.ROOT), position);
+        if (previous != null) deadBytes += recordLength(previous);
+    }
+
+    public synchronized void remove(Kit kit) throws IOException {
+        if (removeIndex(kit.getOwner(), kit.getName()) == null) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_REMOVE);
+            writeOwner(out, kit.getOwner());
+            out.writeUTF(kit.getName());
+        }
+        append(bytes.toByteArray());
+    }
+
+    public boolean isEmpty() {
+        return globalIndex.isEmpty() && userIndex.isEmpty();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private long append(byte[] record) throws IOException {
+        long position = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) channel.write(buffer, position + buffer.position());
+        return position;
+    }
+
+    private int recordLength(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        return buffer.getInt(0) + 4;
+    }
+
+    private byte[] readRecord(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + 4 + buffer.position()) < 0) throw new EOFException();
+        }
+        return buffer.array();
+    }
+
+    private Map<String, Long> getIndex(UUID owner, boolean create) {
+        if (owner == null) return globalIndex;
+        return create ? userIndex.computeIfAbsent(owner, uuid -> new ConcurrentHashMap<>()) : userIndex.get(owner);
+    }
+
+    private Long removeIndex(UUID owner, String name) {
+        Map<String, Long> index = getIndex(owner, false);
+        if (index == null) return null;
+        Long previous = index.remove(name.toLowerCase(Locale.ROOT));
+        if (owner != null && index.isEmpty()) userIndex.remove(owner);
+        return previous;
+    }
+
+    private static UUID readOwner(DataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeOwner(DataOutput out, UUID owner) throws IOException {
+        out.writeBoolean(owner != null);
+        if (owner == null) return;
+        out.writeLong(owner.getMostSignificantBits());
+        out.writeLong(owner.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,75 @@
+package me.ian.kits;
+
+import me.ian.utils.Utils;
+import net.minecraft.server.v1_12_R1.ItemStack;
+import net.minecraft.server.v1_12_R1.NBTTagCompound;
+import net.minecraft.server.v1_12_R1.NBTTagList;
+import net.minecraft.server.v1_12_R1.NonNullList;
+import net.minecraft.server.v1_12_R1.PlayerInventory;
+import org.bukkit.entity.Player;
+
+/**
+ * The decoded contents of a kit, so equipping it copies item stacks instead of parsing the kit's NBT every time.
+ * The stacks in a template are never handed out directly, players always get copies.
+ */
+public class KitTemplate {
+
+    private final ItemStack[] items;
+    private final ItemStack[] armor;
+    private final ItemStack[] offHand;
+
+    private KitTemplate(ItemStack[] items, ItemStack[] armor, ItemStack[] offHand) {
+        this.items = items;
+        this.armor = armor;
+        this.offHand = offHand;
+    }
+
+    /**
+     * Decodes a kit compound the same way {@link PlayerInventory#b(NBTTagList)} does.
+     *
+     * @param compound The kit compound holding the `InvContents` list.
+     * @return The decoded template.
+     */
+    public static KitTemplate decode(NBTTagCompound compound) {
+        ItemStack[] items = emptyStacks(36);
+        ItemStack[] armor = emptyStacks(4);
+        ItemStack[] offHand = emptyStacks(1);
+
+        NBTTagList list = compound.getList("InvContents", 10);
+        for (int i = 0; i < list.size(); i++) {
+            NBTTagCompound itemCompound = list.get(i);
+            int slot = itemCompound.getByte("Slot") & 255;
+            ItemStack stack = new ItemStack(itemCompound);
+            if (stack.isEmpty()) continue;
+
+            if (slot < items.length) {
+                items[slot] = stack;
+            } else if (slot >= 100 && slot < 100 + armor.length) {
+                armor[slot - 100] = stack;
+            } else if (slot >= 150 && slot < 150 + offHand.length) {
+                offHand[slot - 150] = stack;
+            }
+        }
+        return new KitTemplate(items, armor, offHand);
+    }
+
+    // Replaces the player's whole inventory with copies of the template
+    public void apply(Player player) {
+        PlayerInventory inventory = Utils.getHandle(player).inventory;
+        copyInto(items, inventory.items);
+        copyInto(armor, inventory.armor);
+        copyInto(offHand, inventory.extraSlots);
+    }
+
+    private static void copyInto(ItemStack[] source, NonNullList<ItemStack> target) {
+        for (int i = 0; i < target.size(); i++) {
+            target.set(i, i < source.length && !source[i].isEmpty() ? source[i].cloneItemStack() : ItemStack.a);
+        }
+    }
+
+    private static ItemStack[] emptyStacks(int size) {
+        ItemStack[] stacks = new ItemStack[size];
+        for (int i = 0; i < size; i++) stacks[i] = ItemStack.a;
+        return stacks;
+    }
+}
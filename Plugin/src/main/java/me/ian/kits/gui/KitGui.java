@@ -2,12 +2,15 @@ package me.ian.kits.gui;
 
 import lombok.Getter;
 import me.ian.PVPHelper;
+import me.ian.kits.Kit;
+import me.ian.kits.KitMap;
 import me.ian.utils.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 
 @Getter
@@ -32,5 +35,32 @@ public abstract class KitGui {
         player.openInventory(inventory);
     }
 
+    /**
+     * Renders one page of kit icons followed by a row with the back and page buttons.
+     *
+     * @param contents The contents to render into, at least `perPage + 9` slots big.
+     * @param kits     All kits that can be shown.
+     * @param page     The page to show.
+     * @param perPage  How many kits fit on a page, a multiple of 9.
+     * @return The kit shown in each slot of the page.
+     */
+    protected static Kit[] fillPage(ItemStack[] contents, KitMap kits, int page, int perPage) {
+        Kit[] shown = new Kit[perPage];
+        for (int i = 0; i < perPage; i++) {
+            shown[i] = kits.get(page * perPage + i);
+            contents[i] = shown[i] == null ? null : KitIcons.getIcon(shown[i]);
+        }
+
+        int pages = getPageCount(kits, perPage);
+        contents[perPage] = KitIcons.GO_BACK;
+        contents[perPage + 3] = page > 0 ? KitIcons.pageButton(false, page - 1, pages) : null;
+        contents[perPage + 5] = page + 1 < pages ? KitIcons.pageButton(true, page + 1, pages) : null;
+        return shown;
+    }
+
+    protected static int getPageCount(KitMap kits, int perPage) {
+        return Math.max(1, (kits.size() + perPage - 1) / perPage);
+    }
+
     public abstract void onSlotClick(int slot);
 }
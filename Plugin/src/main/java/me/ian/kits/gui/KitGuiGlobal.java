@@ -1,72 +1,82 @@
 package me.ian.kits.gui;
 
+import lombok.RequiredArgsConstructor;
 import me.ian.kits.Kit;
 import me.ian.kits.KitManager;
+import me.ian.kits.KitMap;
 import me.ian.utils.Utils;
-import net.minecraft.server.v1_12_R1.NBTTagCompound;
-import org.bukkit.ChatColor;
-import org.bukkit.Material;
-import org.bukkit.craftbukkit.v1_12_R1.inventory.CraftItemStack;
-import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class KitGuiGlobal extends KitGui {
 
+    private static final int KITS_PER_PAGE = 27;
+
+    // Pages are the same for everyone, so each one is rendered once until the global kits change.
+    // Every viewer gets their own inventory with a copy of the rendered page, nothing a player does can show up for others
+    private static final Map<Integer, Page> PAGES = new HashMap<>();
+    private static int pagesVersion = -1;
+
     private final KitManager kitManager;
+    private final Page page;
 
     public KitGuiGlobal(Player player, KitManager kitManager) {
-        super(player, 36, Utils.getPrefix() + "&9&lGlobal Kits&r", player);
+        this(player, kitManager, 0);
+    }
+
+    public KitGuiGlobal(Player player, KitManager kitManager, int page) {
+        this(player, kitManager, getPage(kitManager.getGlobalKits(), page));
+    }
+
+    private KitGuiGlobal(Player player, KitManager kitManager, Page page) {
+        super(player, KITS_PER_PAGE + 9, Utils.getPrefix() + "&9&lGlobal Kits&r", null);
         this.kitManager = kitManager;
-        if (!kitManager.getGlobalKits().isEmpty()) {
-            for (int i = 0; i < kitManager.getGlobalKits().size(); i++) {
-                Kit kit = kitManager.getGlobalKits().get(i);
-                ItemStack current = new ItemStack(Material.DIAMOND_SWORD);
-                ItemMeta meta = current.getItemMeta();
-                meta.addEnchant(Enchantment.DURABILITY, 1, true);
-                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
-                meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', "&3" + kit.getName()));
-                meta.setLore(Collections.singletonList(ChatColor.translateAlternateColorCodes('&', "&7&oGlobal Kit - Accessible to All Players")));
-                current.setItemMeta(meta);
-                net.minecraft.server.v1_12_R1.ItemStack nmsCopy = CraftItemStack.asNMSCopy(current);
-                NBTTagCompound compound = nmsCopy.getTag();
-                compound.setString("AttachedGlobalKit", kit.getName());
-                nmsCopy.setTag(compound);
-                getInventory().setItem(i, nmsCopy.asBukkitCopy());
-            }
+        this.page = page;
+        getInventory().setContents(page.contents);
+    }
+
+    private static Page getPage(KitMap kits, int index) {
+        if (kits.getVersion() != pagesVersion) {
+            PAGES.clear();
+            pagesVersion = kits.getVersion();
         }
-        ItemStack goBackButton = new ItemStack(Material.STONE_BUTTON);
-        ItemMeta meta = goBackButton.getItemMeta();
-        meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', "&7Go Back"));
-        goBackButton.setItemMeta(meta);
-        getInventory().setItem(27, goBackButton);
+
+        int clamped = Math.max(0, Math.min(index, getPageCount(kits, KITS_PER_PAGE) - 1));
+        return PAGES.computeIfAbsent(clamped, i -> {
+            ItemStack[] contents = new ItemStack[KITS_PER_PAGE + 9];
+            return new Page(i, contents, fillPage(contents, kits, i, KITS_PER_PAGE));
+        });
     }
 
     @Override
     public void onSlotClick(int slot) {
-        if (getInventory().getItem(slot).getType() == Material.STONE_BUTTON) {
+        if (slot == KITS_PER_PAGE) {
             KitGuiTypeSelector guiTypeSelector = new KitGuiTypeSelector(getPlayer(), kitManager);
             guiTypeSelector.open();
             return;
         }
-        String kitNameFromItem = parseKitName(getInventory().getItem(slot));
-        if (kitNameFromItem == null) return;
-        Kit kit = kitManager.getGlobalKits().stream().filter(k -> k.getName().equalsIgnoreCase(kitNameFromItem)).findAny().orElse(null);
+
+        if (slot == KITS_PER_PAGE + 3 || slot == KITS_PER_PAGE + 5) {
+            new KitGuiGlobal(getPlayer(), kitManager, page.index + (slot == KITS_PER_PAGE + 3 ? -1 : 1)).open();
+            return;
+        }
+
+        if (slot >= KITS_PER_PAGE || page.kits[slot] == null) return;
+
+        // Look the kit up again in case it was replaced or removed while the page was open
+        Kit kit = kitManager.getGlobalKits().get(page.kits[slot].getName());
         if (kit == null) return;
         kit.equip(getPlayer());
         getPlayer().closeInventory();
     }
 
-    private String parseKitName(ItemStack itemStack) {
-        net.minecraft.server.v1_12_R1.ItemStack nmsCopy = CraftItemStack.asNMSCopy(itemStack);
-        if (!nmsCopy.hasTag()) return null;
-        NBTTagCompound compound = nmsCopy.getTag();
-        if (!compound.hasKey("AttachedGlobalKit")) return null;
-        return compound.getString("AttachedGlobalKit");
+    @RequiredArgsConstructor
+    private static class Page {
+        private final int index;
+        private final ItemStack[] contents;
+        private final Kit[] kits;
     }
 }
-
@@ -0,0 +1,52 @@
+package me.ian.kits.gui;
+
+import me.ian.kits.Kit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Renders the items shown in the kit GUIs.
+ * Kit icons are rendered once per kit and reused for every GUI open. Saving a kit creates a new kit object,
+ * so only the icons of changed kits are rendered again and the old ones are dropped with their kit.
+ */
+public class KitIcons {
+
+    private static final Map<Kit, ItemStack> ICONS = new WeakHashMap<>();
+
+    public static final ItemStack GO_BACK = button(Material.STONE_BUTTON, "&7Go Back");
+
+    public static ItemStack getIcon(Kit kit) {
+        return ICONS.computeIfAbsent(kit, KitIcons::render);
+    }
+
+    private static ItemStack render(Kit kit) {
+        ItemStack icon = new ItemStack(Material.DIAMOND_SWORD);
+        ItemMeta meta = icon.getItemMeta();
+        meta.addEnchant(Enchantment.DURABILITY, 1, true);
+        meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+        meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', (kit.isGlobal() ? "&3" : "&a") + kit.getName()));
+        meta.setLore(Collections.singletonList(ChatColor.translateAlternateColorCodes('&', kit.isGlobal() ? "&7&oGlobal Kit - Accessible to All Players" : "&7&oUser Kit - Accessible to Only You")));
+        icon.setItemMeta(meta);
+        return icon;
+    }
+
+    public static ItemStack pageButton(boolean next, int page, int pages) {
+        return button(Material.ARROW, String.format("&7%s &8(%s/%s)", next ? "Next Page" : "Previous Page", page + 1, pages));
+    }
+
+    private static ItemStack button(Material material, String name) {
+        ItemStack button = new ItemStack(material);
+        ItemMeta meta = button.getItemMeta();
+        meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', name));
+        button.setItemMeta(meta);
+        return button;
+    }
+}
@@ -1,7 +1,7 @@
 package me.ian.lobby.npc;
 
 import me.ian.PVPHelper;
-import me.ian.kits.Kit;
+import me.ian.kits.KitMap;
 import me.ian.utils.ItemUtils;
 import me.ian.utils.Utils;
 import net.minecraft.server.v1_12_R1.NBTTagCompound;
@@ -12,7 +12,6 @@ import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.metadata.FixedMetadataValue;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -38,7 +37,8 @@ public enum InteractionBehavior {
     GIVE_RANDOM_KIT {
         @Override
         public void execute(Player player, NPC npc) {
-            List<Kit> globalKits = PVPHelper.INSTANCE.getKitManager().getGlobalKits();
+            KitMap globalKits = PVPHelper.INSTANCE.getKitManager().getGlobalKits();
+            if (globalKits.isEmpty()) return;
             Optional.ofNullable(globalKits.get(ThreadLocalRandom.current().nextInt(0, globalKits.size()))).ifPresent(kit -> {
                 kit.equip(player);
                 Utils.sendMessage(player, String.format("<%s> I just gave you a random global kit!", npc.getName()));
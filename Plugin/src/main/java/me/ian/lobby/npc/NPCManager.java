@@ -101,7 +101,6 @@ public class NPCManager implements Listener {
         // save to the filesystem
         File file = new File(npcDataFolder, String.format("%s.nbt", npc.getName()));
         try {
-            if (!file.exists()) file.createNewFile();
             NBTUtils.writeTagToFile(npc.getData(), file);
         } catch (Throwable t) {
             Bukkit.getLogger().warning("Failed to save NPC to file: " + file.getName());
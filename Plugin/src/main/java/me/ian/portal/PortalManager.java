@@ -2,15 +2,13 @@ package me.ian.portal;
 
 import lombok.Getter;
 import me.ian.PVPHelper;
-import me.ian.mixin.event.ServerTickEvent;
+import me.ian.mixin.event.TickCallbacks;
 import me.ian.utils.IManagerData;
 import me.ian.utils.NBTUtils;
 import me.ian.utils.area.BoundingBox;
 import net.minecraft.server.v1_12_R1.NBTTagCompound;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -20,7 +18,7 @@ import java.util.Objects;
 import java.util.logging.Level;
 
 @Getter
-public class PortalManager implements Listener, IManagerData<Portal> {
+public class PortalManager implements IManagerData<Portal> {
 
     private final File portalDataFolder;
     private final List<Portal> portals;
@@ -37,12 +35,11 @@ public class PortalManager implements Listener, IManagerData<Portal> {
             portals.add(portal);
         });
 
-        PVPHelper.INSTANCE.registerListener(this);
+        TickCallbacks.register(PVPHelper.INSTANCE, "Portals", this::onTick);
         PVPHelper.INSTANCE.getLogger().log(Level.INFO, String.format("loaded %s portals", portals.size()));
     }
 
-    @EventHandler
-    public void onMove(ServerTickEvent event) {
+    private void onTick(int tick) {
         Bukkit.getOnlinePlayers().forEach(player ->
                 portals.stream()
                         .filter(portal -> portal.getBoundingBox().isPlayerWithinBounds(player))
@@ -54,7 +51,6 @@ public class PortalManager implements Listener, IManagerData<Portal> {
     public void create(Portal portal) {
         try {
             File file = new File(portalDataFolder, String.format("%s.nbt", portal.getName()));
-            if (!file.exists()) file.createNewFile();
             NBTUtils.writeTagToFile(toCompound(portal), file);
         } catch (Throwable t) {
             t.printStackTrace();
@@ -0,0 +1,114 @@
+package me.ian.profiler;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Main thread time spent on one player's packets over the last minute.
+ * The minute is split into slots that are recycled as time moves on, each holding the total time, the packet count
+ * and a histogram of how long single packets took, in power of two microsecond buckets.
+ */
+public class PlayerCost {
+
+    public static final int SLOTS = 12;
+    public static final long SLOT_MILLIS = 5000L;
+    public static final int BUCKETS = 24;
+
+    @Getter
+    private final UUID owner;
+    @Getter
+    private final String name;
+    private final long[] slotNanos = new long[SLOTS];
+    private final int[] slotCounts = new int[SLOTS];
+    private final int[][] slotHistograms = new int[SLOTS][BUCKETS];
+    private long currentSlot;
+
+    // Time per packet and event type since the player joined, {nanos, count}
+    @Getter
+    private final Map<Class<?>, long[]> sources = new HashMap<>();
+
+    public PlayerCost(UUID owner, String name) {
+        this.owner = owner;
+        this.name = name;
+        this.currentSlot = System.currentTimeMillis() / SLOT_MILLIS;
+    }
+
+    public void recordPacket(Class<?> type, long nanos) {
+        int slot = advance(System.currentTimeMillis());
+        slotNanos[slot] += nanos;
+        slotCounts[slot]++;
+        slotHistograms[slot][bucket(nanos)]++;
+        recordSource(type, nanos);
+    }
+
+    public void recordSource(Class<?> type, long nanos) {
+        long[] source = sources.computeIfAbsent(type, t -> new long[2]);
+        source[0] += nanos;
+        source[1]++;
+    }
+
+    // Clears the slots that fell out of the window and returns the current one
+    private int advance(long now) {
+        long slot = now / SLOT_MILLIS;
+        long expired = Math.min(slot - currentSlot, SLOTS);
+        for (long i = 1; i <= expired; i++) {
+            int index = (int) ((currentSlot + i) % SLOTS);
+            slotNanos[index] = 0;
+            slotCounts[index] = 0;
+            Arrays.fill(slotHistograms[index], 0);
+        }
+        if (slot > currentSlot) currentSlot = slot;
+        return (int) (currentSlot % SLOTS);
+    }
+
+    private static int bucket(long nanos) {
+        long micros = nanos / 1000L;
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros | 1));
+    }
+
+    public long getTotalNanos() {
+        advance(System.currentTimeMillis());
+        long total = 0;
+        for (long nanos : slotNanos) total += nanos;
+        return total;
+    }
+
+    public int getCount() {
+        advance(System.currentTimeMillis());
+        int total = 0;
+        for (int count : slotCounts) total += count;
+        return total;
+    }
+
+    public int[] getHistogram() {
+        advance(System.currentTimeMillis());
+        int[] histogram = new int[BUCKETS];
+        for (int[] slot : slotHistograms) {
+            for (int i = 0; i < BUCKETS; i++) histogram[i] += slot[i];
+        }
+        return histogram;
+    }
+
+    /**
+     * @param percentile Between 0 and 1.
+     * @return The upper bound in microseconds of the histogram bucket the percentile falls in, 0 without packets.
+     */
+    public long getPercentileMicros(double percentile) {
+        int[] histogram = getHistogram();
+        int total = 0;
+        for (int count : histogram) total += count;
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= target) return 2L << i;
+        }
+        return 2L << (BUCKETS - 1);
+    }
+}
@@ -0,0 +1,176 @@
+package me.ian.profiler;
+
+import com.moandjiezana.toml.Toml;
+import lombok.Getter;
+import me.ian.PVPHelper;
+import me.ian.mixin.event.PacketHandledEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.inventory.*;
+import org.bukkit.event.player.*;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes main thread time to the players causing it.
+ * Packet handling is timed by the mixin and reported through {@link PacketHandledEvent}. Player events are timed from
+ * their lowest to their monitor priority listeners, which covers every plugin's listeners. Events fire while their
+ * packet is handled, so event time is only kept as a breakdown and is already part of the packet totals.
+ * <p>
+ * Off unless `profiler.enabled` is set or it is started with /lagprofile start, timing every packet is not free.
+ */
+public class PlayerCostTracker implements Listener {
+
+    private static final List<Class<? extends Event>> TIMED_EVENTS = Arrays.asList(
+            PlayerMoveEvent.class,
+            PlayerTeleportEvent.class,
+            PlayerInteractEvent.class,
+            PlayerInteractEntityEvent.class,
+            PlayerInteractAtEntityEvent.class,
+            PlayerAnimationEvent.class,
+            PlayerItemHeldEvent.class,
+            PlayerSwapHandItemsEvent.class,
+            PlayerDropItemEvent.class,
+            PlayerCommandPreprocessEvent.class,
+            PlayerToggleSneakEvent.class,
+            PlayerToggleSprintEvent.class,
+            BlockPlaceEvent.class,
+            BlockBreakEvent.class,
+            InventoryClickEvent.class,
+            InventoryCreativeEvent.class,
+            InventoryDragEvent.class,
+            InventoryOpenEvent.class,
+            InventoryCloseEvent.class
+    );
+
+    private final Map<UUID, PlayerCost> costs = new HashMap<>();
+    private final Map<Event, Long> eventStarts = new IdentityHashMap<>();
+
+    @Getter
+    private boolean running;
+
+    public PlayerCostTracker() {
+        Toml root = PVPHelper.INSTANCE.getRunningConfig().getToml();
+        Toml config = root.containsTable("profiler") ? root.getTable("profiler") : new Toml();
+        if (config.getBoolean("enabled", false)) start();
+    }
+
+    /**
+     * Starts timing packets and events. While stopped nothing is registered, so the profiler costs nothing.
+     */
+    public void start() {
+        if (running) return;
+        running = true;
+        costs.clear();
+        PVPHelper.INSTANCE.registerListener(this);
+        for (Class<? extends Event> eventClass : TIMED_EVENTS) {
+            Bukkit.getPluginManager().registerEvent(eventClass, this, EventPriority.LOWEST, (listener, event) -> {
+                if (eventClass.isInstance(event) && Bukkit.isPrimaryThread()) eventStarts.put(event, System.nanoTime());
+            }, PVPHelper.INSTANCE, false);
+            Bukkit.getPluginManager().registerEvent(eventClass, this, EventPriority.MONITOR, (listener, event) -> {
+                Long start = eventStarts.remove(event);
+                if (start == null) return;
+                Player player = getPlayer(event);
+                if (player != null) getCost(player).recordSource(event.getClass(), System.nanoTime() - start);
+            }, PVPHelper.INSTANCE, false);
+        }
+    }
+
+    // The recorded costs are kept so they can still be looked at and exported
+    public void stop() {
+        if (!running) return;
+        running = false;
+        HandlerList.unregisterAll(this);
+        eventStarts.clear();
+    }
+
+    private static Player getPlayer(Event event) {
+        HumanEntity entity = null;
+        if (event instanceof PlayerEvent) entity = ((PlayerEvent) event).getPlayer();
+        else if (event instanceof BlockPlaceEvent) entity = ((BlockPlaceEvent) event).getPlayer();
+        else if (event instanceof BlockBreakEvent) entity = ((BlockBreakEvent) event).getPlayer();
+        else if (event instanceof InventoryInteractEvent) entity = ((InventoryInteractEvent) event).getWhoClicked();
+        else if (event instanceof InventoryEvent) entity = ((InventoryEvent) event).getView().getPlayer();
+        return entity instanceof Player ? (Player) entity : null;
+    }
+
+    private PlayerCost getCost(Player player) {
+        return costs.computeIfAbsent(player.getUniqueId(), uuid -> new PlayerCost(uuid, player.getName()));
+    }
+
+    @EventHandler
+    public void onPacketHandled(PacketHandledEvent event) {
+        if (event.getPlayer() == null) return;
+        getCost(event.getPlayer()).recordPacket(event.getPacketType(), event.getNanos());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        costs.remove(event.getPlayer().getUniqueId());
+    }
+
+    public PlayerCost getCost(UUID uuid) {
+        return costs.get(uuid);
+    }
+
+    /**
+     * @return The players that took the most main thread time over the last minute, most expensive first.
+     */
+    public List<PlayerCost> getTop(int limit) {
+        return costs.values().stream()
+                .sorted(Comparator.comparingLong(PlayerCost::getTotalNanos).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        costs.clear();
+    }
+
+    /**
+     * Writes every player's costs to a CSV file. The numbers are collected on the calling thread and written on the executor.
+     *
+     * @return The file that is being written.
+     */
+    public File export() {
+        StringBuilder csv = new StringBuilder("uuid,name,window_ms,packets,total_us,p50_us,p99_us");
+        for (int i = 0; i < PlayerCost.BUCKETS; i++) csv.append(",le_").append(2L << i).append("_us");
+        csv.append('\n');
+
+        for (PlayerCost cost : costs.values()) {
+            csv.append(cost.getOwner()).append(',')
+                    .append(cost.getName()).append(',')
+                    .append(PlayerCost.SLOTS * PlayerCost.SLOT_MILLIS).append(',')
+                    .append(cost.getCount()).append(',')
+                    .append(cost.getTotalNanos() / 1000L).append(',')
+                    .append(cost.getPercentileMicros(0.5D)).append(',')
+                    .append(cost.getPercentileMicros(0.99D));
+            for (int count : cost.getHistogram()) csv.append(',').append(count);
+            csv.append('\n');
+        }
+
+        File folder = new File(PVPHelper.INSTANCE.getDataFolder(), "profiles");
+        File file = new File(folder, String.format("player-costs-%s.csv", new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())));
+        PVPHelper.EXECUTOR_SERVICE.execute(() -> {
+            if (!folder.exists()) folder.mkdirs();
+            try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+                writer.write(csv.toString());
+            } catch (IOException e) {
+                PVPHelper.INSTANCE.getLogger().log(Level.WARNING, String.format("Failed to export player costs to %s", file.getName()), e);
+            }
+        });
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package me.ian.stats;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Duel results, rating and kill counts of a single player.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class PlayerStats {
+
+    public static final int DEFAULT_RATING = 1000;
+
+    private final UUID owner;
+    private int wins;
+    private int losses;
+    private int deaths;
+    private int rating = DEFAULT_RATING;
+    private final Map<String, Integer> kills = new HashMap<>();
+
+    public void addKill(String cause) {
+        kills.merge(cause, 1, Integer::sum);
+    }
+
+    public int getKills(String cause) {
+        return kills.getOrDefault(cause, 0);
+    }
+
+    public int getTotalKills() {
+        return kills.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public PlayerStats copy() {
+        PlayerStats copy = new PlayerStats(owner);
+        copy.wins = wins;
+        copy.losses = losses;
+        copy.deaths = deaths;
+        copy.rating = rating;
+        copy.kills.putAll(kills);
+        return copy;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(owner.getMostSignificantBits());
+        out.writeLong(owner.getLeastSignificantBits());
+        out.writeInt(wins);
+        out.writeInt(losses);
+        out.writeInt(deaths);
+        out.writeInt(rating);
+        out.writeShort(kills.size());
+        for (Map.Entry<String, Integer> entry : kills.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    public static PlayerStats read(DataInput in) throws IOException {
+        PlayerStats stats = new PlayerStats(new UUID(in.readLong(), in.readLong()));
+        stats.wins = in.readInt();
+        stats.losses = in.readInt();
+        stats.deaths = in.readInt();
+        stats.rating = in.readInt();
+        int causes = in.readUnsignedShort();
+        for (int i = 0; i < causes; i++) stats.kills.put(in.readUTF(), in.readInt());
+        return stats;
+    }
+}
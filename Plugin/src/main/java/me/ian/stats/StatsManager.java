@@ -0,0 +1,196 @@
+package me.ian.stats;
+
+import com.moandjiezana.toml.Toml;
+import me.ian.PVPHelper;
+import org.bukkit.OfflinePlayer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Keeps player statistics in memory and persists them without touching the disk on the main thread.
+ * <p>
+ * Every change queues a copy of the player's stats, and the executor appends the queued records to
+ * `stats.log` in batches every `stats.flush_interval` seconds. On startup the compacted `stats.dat` snapshot is read
+ * and the log is replayed on top of it, the newest record of a player wins. On shutdown everything is written into a
+ * fresh snapshot and the log is emptied.
+ * <p>
+ * Every record is a length prefix followed by the player's stats, like a kit pack record. A record cut short by a crash
+ * or a failed flush is cut off the end of the log, so the next records are appended right after the last complete one.
+ */
+public class StatsManager {
+
+    private final Map<UUID, PlayerStats> stats = new HashMap<>();
+    private final Queue<PlayerStats> pending = new ConcurrentLinkedQueue<>();
+    private final Object fileLock = new Object();
+    private final File snapshotFile;
+    private final File logFile;
+
+    public StatsManager() {
+        File statsFolder = new File(PVPHelper.INSTANCE.getDataFolder(), "stats");
+        if (!statsFolder.exists()) statsFolder.mkdirs();
+        snapshotFile = new File(statsFolder, "stats.dat");
+        logFile = new File(statsFolder, "stats.log");
+
+        load();
+        PVPHelper.INSTANCE.getLogger().info(String.format("Loaded stats of %s players", stats.size()));
+
+        long interval = getConfig().getLong("flush_interval", 5L);
+        PVPHelper.EXECUTOR_SERVICE.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private Toml getConfig() {
+        Toml root = PVPHelper.INSTANCE.getRunningConfig().getToml();
+        return root.containsTable("stats") ? root.getTable("stats") : new Toml();
+    }
+
+    public PlayerStats getStats(UUID uuid) {
+        return stats.computeIfAbsent(uuid, PlayerStats::new);
+    }
+
+    public PlayerStats getStats(OfflinePlayer player) {
+        return getStats(player.getUniqueId());
+    }
+
+    /**
+     * Records the result of a duel. Ranked duels also move both players' ratings.
+     */
+    public void recordDuel(OfflinePlayer winner, OfflinePlayer loser, boolean ranked) {
+        PlayerStats winnerStats = getStats(winner);
+        PlayerStats loserStats = getStats(loser);
+        winnerStats.setWins(winnerStats.getWins() + 1);
+        loserStats.setLosses(loserStats.getLosses() + 1);
+
+        if (ranked) {
+            int k = getConfig().getLong("k_factor", 32L).intValue();
+            double expected = 1.0D / (1.0D + Math.pow(10.0D, (loserStats.getRating() - winnerStats.getRating()) / 400.0D));
+            int change = Math.max(1, (int) Math.round(k * (1.0D - expected)));
+            winnerStats.setRating(winnerStats.getRating() + change);
+            loserStats.setRating(loserStats.getRating() - change);
+        }
+
+        markChanged(winnerStats);
+        markChanged(loserStats);
+    }
+
+    /**
+     * Records a player kill.
+     *
+     * @param killer The player credited with the kill, or null if there is none.
+     * @param victim The player that died.
+     * @param cause  What the kill was done with, e.g. crystal or melee.
+     */
+    public void recordKill(OfflinePlayer killer, OfflinePlayer victim, String cause) {
+        PlayerStats victimStats = getStats(victim);
+        victimStats.setDeaths(victimStats.getDeaths() + 1);
+        markChanged(victimStats);
+
+        if (killer == null || killer.getUniqueId().equals(victim.getUniqueId())) return;
+        PlayerStats killerStats = getStats(killer);
+        killerStats.addKill(cause);
+        markChanged(killerStats);
+    }
+
+    private void markChanged(PlayerStats playerStats) {
+        pending.add(playerStats.copy());
+    }
+
+    // Append queued records to the log, runs on the executor
+    private void flush() {
+        if (pending.isEmpty()) return;
+        synchronized (fileLock) {
+            // Only the newest record of each player in this batch is needed
+            Map<UUID, PlayerStats> batch = new LinkedHashMap<>();
+            PlayerStats record;
+            while ((record = pending.poll()) != null) batch.put(record.getOwner(), record);
+
+            long end = logFile.length();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)))) {
+                for (PlayerStats playerStats : batch.values()) writeRecord(out, playerStats);
+            } catch (IOException e) {
+                PVPHelper.INSTANCE.getLogger().log(Level.SEVERE, "Failed to write player stats, they will be retried on the next flush", e);
+                truncate(logFile, end);
+                pending.addAll(batch.values());
+            }
+        }
+    }
+
+    private void load() {
+        synchronized (fileLock) {
+            readRecords(snapshotFile);
+            readRecords(logFile);
+        }
+    }
+
+    private void readRecords(File file) {
+        if (!file.exists()) return;
+        long size = file.length();
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (position + 4 <= size) {
+                int length = in.readInt();
+                if (length <= 0 || position + 4 + length > size) break;
+
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                try (DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                    PlayerStats playerStats = PlayerStats.read(record);
+                    stats.put(playerStats.getOwner(), playerStats);
+                } catch (IOException e) {
+                    PVPHelper.INSTANCE.getLogger().warning(String.format("Skipping an unreadable player stats record in %s", file.getName()));
+                }
+                position += 4 + length;
+            }
+        } catch (IOException e) {
+            PVPHelper.INSTANCE.getLogger().log(Level.SEVERE, String.format("Failed to read player stats from %s", file.getName()), e);
+            return;
+        }
+
+        // Drop a record that was cut short by a crash
+        if (position < size) {
+            PVPHelper.INSTANCE.getLogger().warning(String.format("Dropping %s bytes of an incomplete player stats record at the end of %s", size - position, file.getName()));
+            truncate(file, position);
+        }
+    }
+
+    private void writeRecord(DataOutputStream out, PlayerStats playerStats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream record = new DataOutputStream(bytes)) {
+            playerStats.write(record);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private void truncate(File file, long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() > length) raf.setLength(length);
+        } catch (IOException e) {
+            PVPHelper.INSTANCE.getLogger().log(Level.SEVERE, String.format("Failed to truncate %s", file.getName()), e);
+        }
+    }
+
+    /**
+     * Writes every player's stats into a fresh snapshot and empties the log. Blocks until done, only call this on shutdown.
+     */
+    public void shutdown() {
+        synchronized (fileLock) {
+            flush(); // anything the snapshot fails to save is still in the log
+            File temp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                    for (PlayerStats playerStats : stats.values()) writeRecord(out, playerStats);
+                }
+                Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(logFile.toPath());
+            } catch (IOException e) {
+                PVPHelper.INSTANCE.getLogger().log(Level.SEVERE, "Failed to compact player stats", e);
+            }
+        }
+    }
+}
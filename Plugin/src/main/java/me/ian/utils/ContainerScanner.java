@@ -0,0 +1,80 @@
+package me.ian.utils;
+
+import lombok.Getter;
+import net.minecraft.server.v1_12_R1.NBTTagCompound;
+import net.minecraft.server.v1_12_R1.NBTTagList;
+
+/**
+ * Reverts over-enchanted items stored inside other items, like a shulker box's BlockEntityTag item list,
+ * following containers inside containers up to {@link #MAX_DEPTH} levels deep.
+ * <p>
+ * A {@link Scan} walks the nested item lists with an explicit stack, so it can stop whenever its budget runs out and
+ * continue from the same item later. Nothing is cached between scans, every scan reads the items as they are now.
+ */
+public class ContainerScanner {
+
+    public static final int MAX_DEPTH = 4;
+
+    /**
+     * @param tag The tag of the container item, may be null.
+     * @return A scan of everything inside the item, already done if the item holds nothing.
+     */
+    public static Scan start(NBTTagCompound tag) {
+        Scan scan = new Scan();
+        NBTTagList items = getItems(tag);
+        if (items != null) scan.push(items);
+        return scan;
+    }
+
+    private static NBTTagList getItems(NBTTagCompound tag) {
+        if (tag == null || !tag.hasKeyOfType("BlockEntityTag", 10)) return null;
+        NBTTagCompound blockEntityTag = tag.getCompound("BlockEntityTag");
+        return blockEntityTag.hasKeyOfType("Items", 9) ? (NBTTagList) blockEntityTag.get("Items") : null;
+    }
+
+    public static class Scan {
+        private final NBTTagList[] lists = new NBTTagList[MAX_DEPTH];
+        private final int[] indices = new int[MAX_DEPTH];
+        private int depth;
+
+        // Items reverted so far
+        @Getter
+        private int reverted;
+
+        private void push(NBTTagList items) {
+            lists[depth] = items;
+            indices[depth] = 0;
+            depth++;
+        }
+
+        /**
+         * Looks at nested items until the scan is done or the budget runs out, one budget per item.
+         *
+         * @return The budget left over.
+         */
+        public int run(int budget) {
+            while (depth > 0 && budget > 0) {
+                NBTTagList items = lists[depth - 1];
+                int index = indices[depth - 1]++;
+                if (index >= items.size()) {
+                    lists[--depth] = null;
+                    continue;
+                }
+
+                budget--;
+                NBTTagCompound item = items.get(index);
+                if (!item.hasKeyOfType("tag", 10)) continue;
+                NBTTagCompound itemTag = item.getCompound("tag");
+                if (EnchantValidator.revert(itemTag)) reverted++;
+
+                NBTTagList nested = getItems(itemTag);
+                if (nested != null && depth < MAX_DEPTH) push(nested);
+            }
+            return budget;
+        }
+
+        public boolean isDone() {
+            return depth == 0;
+        }
+    }
+}
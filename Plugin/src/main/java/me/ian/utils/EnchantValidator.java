@@ -0,0 +1,100 @@
+package me.ian.utils;
+
+import net.minecraft.server.v1_12_R1.NBTTagCompound;
+import net.minecraft.server.v1_12_R1.NBTTagList;
+import org.bukkit.craftbukkit.v1_12_R1.enchantments.CraftEnchantment;
+import org.bukkit.craftbukkit.v1_12_R1.inventory.CraftItemStack;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * Finds over-enchanted items by reading the "ench" list of the item's tag directly, without copying it into an ItemMeta.
+ * Maximum levels are looked up by enchantment id in a table built once. Nothing is cached per item, an
+ * enchantment list is a handful of entries and every check reads the levels as they are now.
+ */
+public class EnchantValidator {
+
+    private static final MethodHandle GET_HANDLE;
+    private static final short[] MAX_LEVELS = new short[256];
+
+    static {
+        try {
+            Field handleF = CraftItemStack.class.getDeclaredField("handle");
+            handleF.setAccessible(true);
+            GET_HANDLE = MethodHandles.lookup().unreflectGetter(handleF);
+        } catch (Throwable t) {
+            throw new ExceptionInInitializerError(t);
+        }
+
+        // Ids Bukkit does not know are dropped by ItemMeta, so they never counted as illegal
+        Arrays.fill(MAX_LEVELS, Short.MAX_VALUE);
+        for (Enchantment enchantment : Enchantment.values()) {
+            net.minecraft.server.v1_12_R1.Enchantment raw = CraftEnchantment.getRaw(enchantment);
+            int id = raw == null ? -1 : net.minecraft.server.v1_12_R1.Enchantment.getId(raw);
+            if (id < 0 || id >= MAX_LEVELS.length) continue;
+            MAX_LEVELS[id] = (short) enchantment.getMaxLevel();
+        }
+    }
+
+    /**
+     * @return The item's NMS stack without copying it, or null if the item is not backed by one.
+     */
+    public static net.minecraft.server.v1_12_R1.ItemStack getHandle(ItemStack itemStack) {
+        if (!(itemStack instanceof CraftItemStack)) return null;
+        try {
+            return (net.minecraft.server.v1_12_R1.ItemStack) GET_HANDLE.invokeExact((CraftItemStack) itemStack);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * @param tag The tag of an item, may be null.
+     * @return True if any enchantment on the item is above its maximum level.
+     */
+    public static boolean isIllegal(NBTTagCompound tag) {
+        NBTTagList enchants = getEnchants(tag);
+        if (enchants == null) return false;
+        for (int i = 0; i < enchants.size(); i++) {
+            NBTTagCompound enchant = enchants.get(i);
+            if (getLevel(enchant) > getMaxLevel(enchant.getShort("id"))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lowers every enchantment above its maximum level down to the maximum, in place.
+     *
+     * @param tag The tag of an item, may be null.
+     * @return True if anything was changed.
+     */
+    public static boolean revert(NBTTagCompound tag) {
+        if (!isIllegal(tag)) return false;
+        NBTTagList enchants = getEnchants(tag);
+        for (int i = 0; i < enchants.size(); i++) {
+            NBTTagCompound enchant = enchants.get(i);
+            short max = getMaxLevel(enchant.getShort("id"));
+            if (getLevel(enchant) > max) enchant.setShort("lvl", max);
+        }
+        return true;
+    }
+
+    private static NBTTagList getEnchants(NBTTagCompound tag) {
+        if (tag == null || !tag.hasKeyOfType("ench", 9)) return null;
+        return (NBTTagList) tag.get("ench");
+    }
+
+    // Read unsigned like CraftMetaItem does, so negative levels count as huge ones
+    private static int getLevel(NBTTagCompound enchant) {
+        return enchant.getShort("lvl") & 0xFFFF;
+    }
+
+    private static short getMaxLevel(short id) {
+        return id >= 0 && id < MAX_LEVELS.length ? MAX_LEVELS[id] : Short.MAX_VALUE;
+    }
+}
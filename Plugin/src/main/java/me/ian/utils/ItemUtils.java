@@ -51,6 +51,10 @@ public class ItemUtils {
 
     public static boolean isIllegal(ItemStack itemStack) {
         if (itemStack == null) return false;
+        net.minecraft.server.v1_12_R1.ItemStack handle = EnchantValidator.getHandle(itemStack);
+        if (handle != null) return EnchantValidator.isIllegal(handle.getTag());
+
+        // Plain Bukkit stacks have no tag to read
         if (!itemStack.hasItemMeta()) return false;
         if (!itemStack.getItemMeta().hasEnchants()) return false;
         return itemStack.getItemMeta().getEnchants().entrySet().stream().anyMatch(entry -> entry.getValue() > entry.getKey().getMaxLevel());
@@ -58,6 +62,12 @@ public class ItemUtils {
 
     public static void revertItemStack(ItemStack itemStack) {
         if (itemStack == null) return;
+        net.minecraft.server.v1_12_R1.ItemStack handle = EnchantValidator.getHandle(itemStack);
+        if (handle != null) {
+            EnchantValidator.revert(handle.getTag());
+            return;
+        }
+
         if (!itemStack.hasItemMeta()) return;
         if (!itemStack.getItemMeta().hasEnchants()) return;
         ItemMeta meta = itemStack.getItemMeta();
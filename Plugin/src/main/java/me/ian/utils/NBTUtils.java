@@ -10,33 +10,46 @@ import org.bukkit.craftbukkit.v1_12_R1.inventory.CraftInventoryPlayer;
 import org.bukkit.entity.Player;
 
 import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author SevJ6
  */
 public class NBTUtils {
 
-    private static Method loadM;
-    private static Method createTagM;
+    private static final MethodHandle CREATE_TAG;
+    private static final MethodHandle LOAD;
+    private static final MethodHandle WRITE;
 
     static {
         try {
-            createTagM = NBTBase.class.getDeclaredMethod("createTag", byte.class);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Method createTagM = NBTBase.class.getDeclaredMethod("createTag", byte.class);
             createTagM.setAccessible(true);
-            loadM = NBTBase.class.getDeclaredMethod("load", DataInput.class, int.class, NBTReadLimiter.class);
+            CREATE_TAG = lookup.unreflect(createTagM);
+            Method loadM = NBTBase.class.getDeclaredMethod("load", DataInput.class, int.class, NBTReadLimiter.class);
             loadM.setAccessible(true);
+            LOAD = lookup.unreflect(loadM);
+            Method writeM = NBTBase.class.getDeclaredMethod("write", DataOutput.class);
+            writeM.setAccessible(true);
+            WRITE = lookup.unreflect(writeM);
         } catch (Throwable t) {
-            t.printStackTrace();
+            throw new ExceptionInInitializerError(t);
         }
     }
 
     private static NBTBase readBaseFromInput(DataInput input) throws Throwable {
         byte typeId = input.readByte();
-        if (typeId == 0) return NBTTagEnd.class.newInstance();
-        NBTBase base = (NBTBase) createTagM.invoke(NBTBase.class, typeId);
+        NBTBase base = (NBTBase) CREATE_TAG.invokeExact(typeId);
+        if (typeId == 0) return base;
         input.readUTF();
-        loadM.invoke(base, input, 0, NBTReadLimiter.a);
+        LOAD.invokeExact(base, input, 0, NBTReadLimiter.a);
         return base;
     }
 
@@ -46,33 +59,48 @@ public class NBTUtils {
     }
 
     @SneakyThrows
-    private static void writeNBT(NBTTagCompound compound, DataOutput output) {
+    public static void writeNBT(NBTTagCompound compound, DataOutput output) {
         output.writeByte(compound.getTypeId());
         if (compound.getTypeId() == 0) return;
         output.writeUTF("");
-        Method writeM = NBTBase.class.getDeclaredMethod("write", DataOutput.class);
-        writeM.setAccessible(true);
-        writeM.invoke(compound, output);
+        WRITE.invokeExact((NBTBase) compound, output);
     }
 
+    /**
+     * Reads a tag from a file written by {@link #writeTagToFile(NBTTagCompound, File, boolean)}, compressed or not.
+     */
     @SneakyThrows
     public static NBTTagCompound readTagFromFile(File file) {
-        FileInputStream fis = new FileInputStream(file);
-        DataInputStream in = new DataInputStream(fis);
-        NBTTagCompound compound = readNBT(in);
-        in.close();
-        fis.close();
-        return compound;
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            // Uncompressed tags start with the compound type id, gzip streams with 0x1f8b
+            in.mark(2);
+            boolean compressed = in.read() == 0x1f && in.read() == 0x8b;
+            in.reset();
+            return readNBT(new DataInputStream(compressed ? new BufferedInputStream(new GZIPInputStream(in)) : in));
+        }
     }
 
-    @SneakyThrows
     public static void writeTagToFile(NBTTagCompound compound, File file) {
-        FileOutputStream fos = new FileOutputStream(file);
-        DataOutputStream out = new DataOutputStream(fos);
-        writeNBT(compound, out);
-        out.flush();
-        out.close();
-        fos.close();
+        writeTagToFile(compound, file, false);
+    }
+
+    /**
+     * Writes a tag to a temporary file next to the target and moves it over the target once it is complete,
+     * so a crash mid-write never leaves a truncated file behind.
+     *
+     * @param compound The tag to write.
+     * @param file     The file to write to.
+     * @param compress Whether to gzip the tag.
+     */
+    @SneakyThrows
+    public static void writeTagToFile(NBTTagCompound compound, File file, boolean compress) {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        OutputStream stream = new BufferedOutputStream(new FileOutputStream(temp));
+        if (compress) stream = new GZIPOutputStream(stream, 8192);
+        try (DataOutputStream out = new DataOutputStream(stream)) {
+            writeNBT(compound, out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     public static NBTTagCompound saveLocationToTag(Location location) {
@@ -0,0 +1,136 @@
+package me.ian.utils;
+
+import net.minecraft.server.v1_12_R1.*;
+import org.bukkit.craftbukkit.v1_12_R1.CraftWorld;
+
+/**
+ * Block queries that work on chunk sections directly instead of looking blocks up one at a time.
+ * Most sections in our void worlds are empty, and an empty section answers for all 4096 of its blocks at once.
+ * None of the methods here load chunks unless they say so.
+ */
+public class WorldQuery {
+
+    public static final int MISS = 0;
+    public static final int HIT = 1;
+    public static final int UNLOADED = 2;
+
+    /**
+     * @return True if every section the box touches is loaded and has no blocks in it.
+     */
+    public static boolean isEmpty(WorldServer world, double x0, double y0, double z0, double x1, double y1, double z1) {
+        ChunkProviderServer chunkProvider = world.getChunkProviderServer();
+        int minX = MathHelper.floor(Math.min(x0, x1)) >> 4, maxX = MathHelper.floor(Math.max(x0, x1)) >> 4;
+        int minY = Math.max(0, MathHelper.floor(Math.min(y0, y1))) >> 4, maxY = Math.min(255, MathHelper.floor(Math.max(y0, y1))) >> 4;
+        int minZ = MathHelper.floor(Math.min(z0, z1)) >> 4, maxZ = MathHelper.floor(Math.max(z0, z1)) >> 4;
+
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                Chunk chunk = chunkProvider.getLoadedChunkAt(chunkX, chunkZ);
+                if (chunk == null) return false;
+                ChunkSection[] sections = chunk.getSections();
+                for (int sectionY = minY; sectionY <= maxY; sectionY++) {
+                    if (!isEmpty(sections[sectionY])) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first block with a collision box along a line, walking every block the line passes through in order.
+     * Air, liquids and blocks without a collision box are passed through, see Amanatides &amp; Woo, "A Fast Voxel Traversal Algorithm".
+     *
+     * @param hit Receives the x, y and z of the block that was hit.
+     * @return {@link #HIT}, {@link #MISS}, or {@link #UNLOADED} if the line reaches an unloaded chunk before hitting anything.
+     */
+    public static int rayTrace(WorldServer world, double x0, double y0, double z0, double x1, double y1, double z1, int[] hit) {
+        ChunkProviderServer chunkProvider = world.getChunkProviderServer();
+        int blockX = MathHelper.floor(x0), blockY = MathHelper.floor(y0), blockZ = MathHelper.floor(z0);
+        int endX = MathHelper.floor(x1), endY = MathHelper.floor(y1), endZ = MathHelper.floor(z1);
+        double dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double deltaX = stepX == 0 ? Double.MAX_VALUE : Math.abs(1.0D / dx);
+        double deltaY = stepY == 0 ? Double.MAX_VALUE : Math.abs(1.0D / dy);
+        double deltaZ = stepZ == 0 ? Double.MAX_VALUE : Math.abs(1.0D / dz);
+        double maxX = stepX == 0 ? Double.MAX_VALUE : (stepX > 0 ? blockX + 1 - x0 : x0 - blockX) * deltaX;
+        double maxY = stepY == 0 ? Double.MAX_VALUE : (stepY > 0 ? blockY + 1 - y0 : y0 - blockY) * deltaY;
+        double maxZ = stepZ == 0 ? Double.MAX_VALUE : (stepZ > 0 ? blockZ + 1 - z0 : z0 - blockZ) * deltaZ;
+
+        // The line stays in the same chunk for most blocks, only look it up again when it crosses into another one
+        Chunk chunk = null;
+        int chunkX = 0, chunkZ = 0;
+        while (true) {
+            if (blockY >= 0 && blockY < 256) {
+                if (chunk == null || chunkX != blockX >> 4 || chunkZ != blockZ >> 4) {
+                    chunkX = blockX >> 4;
+                    chunkZ = blockZ >> 4;
+                    chunk = chunkProvider.getLoadedChunkAt(chunkX, chunkZ);
+                    if (chunk == null) return UNLOADED;
+                }
+
+                ChunkSection section = chunk.getSections()[blockY >> 4];
+                if (!isEmpty(section)) {
+                    IBlockData data = section.getType(blockX & 15, blockY & 15, blockZ & 15);
+                    if (hasCollision(world, data, blockX, blockY, blockZ)) {
+                        hit[0] = blockX;
+                        hit[1] = blockY;
+                        hit[2] = blockZ;
+                        return HIT;
+                    }
+                }
+            }
+
+            if (blockX == endX && blockY == endY && blockZ == endZ) return MISS;
+            if (maxX < maxY && maxX < maxZ) {
+                if (maxX > 1.0D) return MISS;
+                blockX += stepX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                if (maxY > 1.0D) return MISS;
+                blockY += stepY;
+                maxY += deltaY;
+            } else {
+                if (maxZ > 1.0D) return MISS;
+                blockZ += stepZ;
+                maxZ += deltaZ;
+            }
+        }
+    }
+
+    /**
+     * Finds the highest block that is not air in a column, skipping empty sections 16 blocks at a time.
+     * Loads the chunk if it is not loaded. The heightmap is not used because it ignores blocks that let light through, like glass.
+     *
+     * @param maxY The highest y to look at.
+     * @return The y of the block, or -1 if the column is empty up to maxY.
+     */
+    public static int getHighestBlockY(org.bukkit.World world, int x, int z, int maxY) {
+        Chunk chunk = ((CraftWorld) world).getHandle().getChunkAt(x >> 4, z >> 4);
+        ChunkSection[] sections = chunk.getSections();
+        int y = Math.min(255, maxY);
+        while (y >= 0) {
+            ChunkSection section = sections[y >> 4];
+            if (isEmpty(section)) {
+                y = (y & ~15) - 1;
+                continue;
+            }
+            if (section.getType(x & 15, y & 15, z & 15).getBlock() != Blocks.AIR) return y;
+            y--;
+        }
+        return -1;
+    }
+
+    // Only blocks with a collision box stop the line, like World#rayTrace. Grass, torches, signs and redstone do not
+    private static boolean hasCollision(WorldServer world, IBlockData data, int x, int y, int z) {
+        Material material = data.getMaterial();
+        if (material == Material.AIR || material.isLiquid()) return false;
+        return data.d(world, new BlockPosition(x, y, z)) != Block.k;
+    }
+
+    private static boolean isEmpty(ChunkSection section) {
+        return section == null || section.a();
+    }
+}
@@ -5,11 +5,11 @@ import net.minecraft.server.v1_12_R1.NBTTagCompound;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.craftbukkit.v1_12_R1.entity.CraftEntity;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Getter
@@ -19,38 +19,54 @@ public class BoundingBox {
     private final Location pointA;
     private final Location pointB;
 
+    // Corners computed once so containment checks are plain comparisons
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+
     public BoundingBox(World world, Location pointA, Location pointB) {
         if (!world.equals(pointA.getWorld()) || !world.equals(pointB.getWorld())) throw new IllegalArgumentException("Worlds must be the same!");
 
         this.world = world;
-        this.pointA = pointA;
-        this.pointB = pointB;
+        this.pointA = pointA.clone();
+        this.pointB = pointB.clone();
+        this.minX = Math.min(pointA.getX(), pointB.getX());
+        this.minY = Math.min(pointA.getY(), pointB.getY());
+        this.minZ = Math.min(pointA.getZ(), pointB.getZ());
+        this.maxX = Math.max(pointA.getX(), pointB.getX());
+        this.maxY = Math.max(pointA.getY(), pointB.getY());
+        this.maxZ = Math.max(pointA.getZ(), pointB.getZ());
+    }
+
+    // Check if a point is within the bounds of the box, ignoring the world
+    public boolean contains(double x, double y, double z) {
+        return x >= minX && x <= maxX &&
+                y >= minY && y <= maxY &&
+                z >= minZ && z <= maxZ;
+    }
+
+    public boolean isWithinBounds(World world, double x, double y, double z) {
+        return this.world.equals(world) && contains(x, y, z);
     }
 
     // Check if a location is within the bounds of the box
     public boolean isLocationWithinBounds(Location loc) {
-        double minX = Math.min(pointA.getX(), pointB.getX());
-        double maxX = Math.max(pointA.getX(), pointB.getX());
-        double minY = Math.min(pointA.getY(), pointB.getY());
-        double maxY = Math.max(pointA.getY(), pointB.getY());
-        double minZ = Math.min(pointA.getZ(), pointB.getZ());
-        double maxZ = Math.max(pointA.getZ(), pointB.getZ());
-
-        return loc.getX() >= minX && loc.getX() <= maxX &&
-                loc.getY() >= minY && loc.getY() <= maxY &&
-                loc.getZ() >= minZ && loc.getZ() <= maxZ;
+        return contains(loc.getX(), loc.getY(), loc.getZ());
+    }
+
+    // Check if an entity is within the bounds of the box, using the block it is standing in
+    public boolean isEntityWithinBounds(Entity entity) {
+        net.minecraft.server.v1_12_R1.Entity handle = ((CraftEntity) entity).getHandle();
+        return handle.world.getWorld() == world && contains(Math.floor(handle.locX), Math.floor(handle.locY), Math.floor(handle.locZ));
     }
 
     // Check if a player is within the bounds of the box
     public boolean isPlayerWithinBounds(Player player) {
-        Location blockLocation = player.getLocation().getBlock().getLocation();
-        return isLocationWithinBounds(blockLocation);
+        return isEntityWithinBounds(player);
     }
 
     // Get all players in the box
     public List<Player> getPlayers() {
         return Bukkit.getOnlinePlayers().stream()
-                .filter(player -> Objects.equals(world, player.getWorld()))
                 .filter(this::isPlayerWithinBounds)
                 .collect(Collectors.toList());
     }
@@ -59,7 +75,7 @@ public class BoundingBox {
     public List<Entity> getEntities() {
         return getWorld().getEntities().stream()
                 .filter(entity -> !(entity instanceof Player))
-                .filter(entity -> isLocationWithinBounds(entity.getLocation().getBlock().getLocation()))
+                .filter(this::isEntityWithinBounds)
                 .collect(Collectors.toList());
     }
 
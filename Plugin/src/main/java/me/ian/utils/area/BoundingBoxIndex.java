@@ -0,0 +1,134 @@
+package me.ian.utils.area;
+
+import org.bukkit.World;
+import org.bukkit.craftbukkit.v1_12_R1.entity.CraftEntity;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-world chunk grid of bounding boxes.
+ * Lookups hash the chunk a point is in and only test the boxes overlapping that chunk, without allocating.
+ * The grid of a world is rebuilt whenever a box is added or removed, which only happens on admin commands.
+ *
+ * @param <T> the type owning the bounding boxes (arenas, portals...)
+ */
+public class BoundingBoxIndex<T> {
+
+    private final Function<T, BoundingBox> boxGetter;
+    private final Map<World, List<Entry<T>>> entries = new HashMap<>();
+    private final Map<World, Grid<T>> grids = new HashMap<>();
+
+    public BoundingBoxIndex(Function<T, BoundingBox> boxGetter) {
+        this.boxGetter = boxGetter;
+    }
+
+    public void add(T value) {
+        Entry<T> entry = new Entry<>(value, boxGetter.apply(value));
+        List<Entry<T>> worldEntries = entries.computeIfAbsent(entry.world, w -> new ArrayList<>());
+        worldEntries.add(entry);
+        grids.put(entry.world, new Grid<>(worldEntries));
+    }
+
+    public void remove(T value) {
+        World world = boxGetter.apply(value).getWorld();
+        List<Entry<T>> worldEntries = entries.get(world);
+        if (worldEntries == null || !worldEntries.removeIf(entry -> entry.value == value)) return;
+        if (worldEntries.isEmpty()) {
+            entries.remove(world);
+            grids.remove(world);
+        } else grids.put(world, new Grid<>(worldEntries));
+    }
+
+    // Find the first value whose bounding box contains the given point
+    public T find(World world, double x, double y, double z) {
+        Grid<T> grid = grids.get(world);
+        if (grid == null) return null;
+        Entry<T>[] bucket = grid.get((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+        if (bucket == null) return null;
+        for (Entry<T> entry : bucket) {
+            if (entry.contains(x, y, z)) return entry.value;
+        }
+        return null;
+    }
+
+    public boolean contains(World world, double x, double y, double z) {
+        return find(world, x, y, z) != null;
+    }
+
+    // Find the first value whose bounding box contains the block an entity is standing in
+    public T find(Entity entity) {
+        net.minecraft.server.v1_12_R1.Entity handle = ((CraftEntity) entity).getHandle();
+        return find(handle.world.getWorld(), Math.floor(handle.locX), Math.floor(handle.locY), Math.floor(handle.locZ));
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final World world;
+        private final BoundingBox box;
+
+        private Entry(T value, BoundingBox box) {
+            this.value = value;
+            this.world = box.getWorld();
+            this.box = box;
+        }
+
+        private boolean contains(double x, double y, double z) {
+            return box.contains(x, y, z);
+        }
+    }
+
+    // Open addressing chunk key -> entries table, immutable once built
+    private static final class Grid<T> {
+        private final long[] keys;
+        private final Entry<T>[][] buckets;
+        private final int mask;
+
+        @SuppressWarnings("unchecked")
+        private Grid(List<Entry<T>> worldEntries) {
+            Map<Long, List<Entry<T>>> cells = new HashMap<>();
+            for (Entry<T> entry : worldEntries) {
+                BoundingBox box = entry.box;
+                for (int cx = (int) Math.floor(box.getMinX()) >> 4; cx <= (int) Math.floor(box.getMaxX()) >> 4; cx++) {
+                    for (int cz = (int) Math.floor(box.getMinZ()) >> 4; cz <= (int) Math.floor(box.getMaxZ()) >> 4; cz++) {
+                        cells.computeIfAbsent(key(cx, cz), k -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+
+            int capacity = Integer.highestOneBit(Math.max(cells.size(), 1) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.buckets = new Entry[capacity][];
+            this.mask = capacity - 1;
+            cells.forEach((key, cellEntries) -> {
+                int slot = hash(key) & mask;
+                while (buckets[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = key;
+                buckets[slot] = cellEntries.toArray(new Entry[0]);
+            });
+        }
+
+        private Entry<T>[] get(int chunkX, int chunkZ) {
+            long key = key(chunkX, chunkZ);
+            for (int slot = hash(key) & mask; buckets[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return buckets[slot];
+            }
+            return null;
+        }
+
+        private static long key(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}